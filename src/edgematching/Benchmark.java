@@ -0,0 +1,414 @@
+package edgematching;
+
+import edgematching.cnf.*;
+import edgematching.problem.*;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/*
+ * Benchmark Class ...
+ *
+ * contains micro-benchmarks for parts of the sat-pipeline,
+ * invoked with the name of the benchmark as first argument
+ *
+ * parser [variables] [repetitions]:
+ *  compares ModelParser with the old Scanner-based parsing of solver output
+ *
+ * encoding input-file [threads] [repetitions]:
+ *  encodes with 1, 2, 4, ... threads (up to threads) into a ClauseCounter
+ *
+ * incremental input-file [hints]:
+ *  forbids placements of a solution one at a time,
+ *  once with assumptions on one incremental CDCLSolver and once with a new solver each
+ *
+ * cardinality input-file [seconds]:
+ *  encodes with each "exactly one" strategy (all families) and solves with CDCLSolver
+ *
+ * encodings input-file [seconds]:
+ *  solves the order, order-redundant, regular and multiset encoding with CDCLSolver
+ */
+public class Benchmark
+{
+	public static void main (String[] args)
+	{
+		if ((args.length < 1) || (args[0].equals ("-h"))) {
+			printHelp ();
+			return;
+		}
+
+		if (args[0].equals ("parser")) {
+			int variables   = (args.length > 1 ? Integer.parseInt (args[1]) : 1000000);
+			int repetitions = (args.length > 2 ? Integer.parseInt (args[2]) : 5);
+
+			benchmarkParser (variables, repetitions);
+		} else if (args[0].equals ("encoding") && (args.length > 1)) {
+			int threads     = (args.length > 2 ? Integer.parseInt (args[2]) : Runtime.getRuntime ().availableProcessors ());
+			int repetitions = (args.length > 3 ? Integer.parseInt (args[3]) : 5);
+
+			benchmarkEncoding (args[1], threads, repetitions);
+		} else if (args[0].equals ("incremental") && (args.length > 1)) {
+			int hints = (args.length > 2 ? Integer.parseInt (args[2]) : 20);
+
+			benchmarkIncremental (args[1], hints);
+		} else if (args[0].equals ("cardinality") && (args.length > 1)) {
+			int seconds = (args.length > 2 ? Integer.parseInt (args[2]) : 60);
+
+			benchmarkCardinality (args[1], seconds);
+		} else if (args[0].equals ("encodings") && (args.length > 1)) {
+			int seconds = (args.length > 2 ? Integer.parseInt (args[2]) : 60);
+
+			benchmarkEncodings (args[1], seconds);
+		} else {
+			printHelp ();
+			System.exit (1);
+		}
+	}
+
+	protected static void printHelp ()
+	{
+		System.out.println ("Arguments:");
+		System.out.println ("parser [variables] [repetitions]");
+		System.out.println ("encoding input-file [threads] [repetitions]");
+		System.out.println ("incremental input-file [hints]");
+		System.out.println ("cardinality input-file [seconds]");
+		System.out.println ("encodings input-file [seconds]");
+	}
+
+	/*
+	 * ===============================================================================
+	 * model parser
+	 * ===============================================================================
+	 */
+
+	protected static void benchmarkParser (int variables, int repetitions)
+	{
+		Random random = new Random (42);
+
+		StringBuilder competition_output = new StringBuilder ();
+		StringBuilder minisat_output     = new StringBuilder ();
+
+		competition_output.append ("c generated output\ns SATISFIABLE\n");
+		minisat_output.append ("SAT\n");
+
+		for (int i_variable = 1; i_variable <= variables; i_variable ++) {
+			int literal = (random.nextBoolean () ? i_variable : -i_variable);
+
+			if ((i_variable - 1) % 10 == 0) {
+				if (i_variable > 1) competition_output.append ('\n');
+				competition_output.append ('v');
+			}
+
+			competition_output.append (' ').append (literal);
+			minisat_output.append (literal).append (' ');
+		}
+
+		competition_output.append ("\nv 0\n");
+		minisat_output.append ("0\n");
+
+		byte[] competition_bytes = competition_output.toString ().getBytes ();
+		byte[] minisat_bytes     = minisat_output.toString ().getBytes ();
+
+		System.err.println ("parsing " + variables + " variables, " + repetitions + " repetitions");
+
+		try {
+			// warm up
+			for (int i = 0; i < 2; i++) {
+				parseCompetitionWithScanner (competition_bytes, variables);
+				parseCompetitionWithModelParser (competition_bytes, variables);
+				parseMiniSATWithScanner (minisat_bytes, variables);
+				parseMiniSATWithModelParser (minisat_bytes, variables);
+			}
+
+			long time_scanner = 0;
+			long time_parser  = 0;
+
+			for (int i = 0; i < repetitions; i++) {
+				long start = System.nanoTime ();
+				Model model_scanner = parseCompetitionWithScanner (competition_bytes, variables);
+				time_scanner += System.nanoTime () - start;
+
+				start = System.nanoTime ();
+				Model model_parser = parseCompetitionWithModelParser (competition_bytes, variables);
+				time_parser += System.nanoTime () - start;
+
+				checkModels (model_scanner, model_parser, variables);
+			}
+
+			printTimes ("competition format", time_scanner, time_parser, repetitions);
+
+			time_scanner = 0;
+			time_parser  = 0;
+
+			for (int i = 0; i < repetitions; i++) {
+				long start = System.nanoTime ();
+				Model model_scanner = parseMiniSATWithScanner (minisat_bytes, variables);
+				time_scanner += System.nanoTime () - start;
+
+				start = System.nanoTime ();
+				Model model_parser = parseMiniSATWithModelParser (minisat_bytes, variables);
+				time_parser += System.nanoTime () - start;
+
+				checkModels (model_scanner, model_parser, variables);
+			}
+
+			printTimes ("minisat result  ", time_scanner, time_parser, repetitions);
+		} catch (IOException exception) {
+			System.err.println ("Error during benchmark...");
+		}
+	}
+
+	protected static void printTimes (String name, long timeScanner, long timeParser, int repetitions)
+	{
+		double ms_scanner = timeScanner / 1e6 / repetitions;
+		double ms_parser  = timeParser  / 1e6 / repetitions;
+
+		System.out.printf ("%s: Scanner %9.2f ms, ModelParser %9.2f ms, speedup %6.1fx%n", name, ms_scanner, ms_parser, ms_scanner / ms_parser);
+	}
+
+	protected static void checkModels (Model first, Model second, int variables)
+	{
+		for (int i_variable = 1; i_variable <= variables; i_variable ++) {
+			if (first.isTrue (i_variable) != second.isTrue (i_variable)) {
+				System.err.println ("models differ at variable " + i_variable);
+				System.exit (1);
+			}
+		}
+	}
+
+	/*
+	 * parsing as done by PicoSAT before: line-by-line with a Scanner for each v-line
+	 */
+	protected static Model parseCompetitionWithScanner (byte[] bytes, int variables) throws IOException
+	{
+		Model          model  = new Model (variables);
+		BufferedReader reader = new BufferedReader (new InputStreamReader (new ByteArrayInputStream (bytes)));
+
+		String line = reader.readLine ();
+
+		while (line != null) {
+			if ((line.length () >= 3) && (line.charAt (0) == 'v')) {
+				Scanner literal_scanner = new Scanner (line.substring (2));
+
+				while (literal_scanner.hasNextInt ()) {
+					int current_literal = literal_scanner.nextInt ();
+					if (current_literal == 0) break;
+					model.setLiteral (current_literal);
+				}
+			}
+
+			line = reader.readLine ();
+		}
+
+		return model;
+	}
+
+	protected static Model parseCompetitionWithModelParser (byte[] bytes, int variables) throws IOException
+	{
+		ModelParser parser = new ModelParser (variables);
+
+		parser.parseCompetitionOutput (Channels.newChannel (new ByteArrayInputStream (bytes)));
+
+		return parser.getModel ();
+	}
+
+	/*
+	 * parsing as done by MiniSAT before: one Scanner on the solution line
+	 */
+	protected static Model parseMiniSATWithScanner (byte[] bytes, int variables) throws IOException
+	{
+		Model          model  = new Model (variables);
+		BufferedReader reader = new BufferedReader (new InputStreamReader (new ByteArrayInputStream (bytes)));
+
+		reader.readLine ();
+
+		Scanner literal_scanner = new Scanner (reader.readLine ());
+
+		while (literal_scanner.hasNextInt ()) {
+			int current_literal = literal_scanner.nextInt ();
+			if (current_literal == 0) break;
+			model.setLiteral (current_literal);
+		}
+
+		return model;
+	}
+
+	protected static Model parseMiniSATWithModelParser (byte[] bytes, int variables) throws IOException
+	{
+		ModelParser parser = new ModelParser (variables);
+
+		parser.parseMiniSATResult (Channels.newChannel (new ByteArrayInputStream (bytes)));
+
+		return parser.getModel ();
+	}
+
+	/*
+	 * ===============================================================================
+	 * parallel encoding
+	 * ===============================================================================
+	 */
+
+	protected static void benchmarkEncoding (String filename, int maxThreads, int repetitions)
+	{
+		ProblemEncodingOrderRedundant encoding = new ProblemEncodingOrderRedundant (readProblem (filename));
+
+		int clauses = -1;
+
+		for (int i_threads = 1; i_threads <= maxThreads; i_threads *= 2) {
+			encoding.setEncodingThreads (i_threads);
+
+			// warm up
+			encoding.encodeToSAT (new ClauseCounter ());
+
+			long time = 0;
+
+			for (int i = 0; i < repetitions; i++) {
+				ClauseCounter counter = new ClauseCounter ();
+
+				long start = System.nanoTime ();
+				encoding.encodeToSAT (counter);
+				time += System.nanoTime () - start;
+
+				if ((clauses >= 0) && (clauses != counter.getAmountOfClauses ())) {
+					System.err.println ("clause counts differ with " + i_threads + " threads");
+					System.exit (1);
+				}
+
+				clauses = counter.getAmountOfClauses ();
+			}
+
+			System.out.printf ("%2d threads: %9.2f ms, %d clauses%n", i_threads, time / 1e6 / repetitions, clauses);
+		}
+	}
+
+	protected static Problem readProblem (String filename)
+	{
+		Problem problem = new edgematching.problem.Reader (filename).getProblem ();
+
+		if ((problem == null) || (! problem.specificationCorrect ())) {
+			System.err.println ("Not a valid Edge Matching specification!");
+			System.exit (1);
+		}
+
+		return problem;
+	}
+
+	/*
+	 * ===============================================================================
+	 * incremental solving
+	 * ===============================================================================
+	 */
+
+	protected static void benchmarkIncremental (String filename, int hints)
+	{
+		ProblemEncodingOrderRedundant encoding = new ProblemEncodingOrderRedundant (readProblem (filename));
+		CDCLSolver                    solver   = new CDCLSolver ();
+
+		encoding.encodeToSAT (solver);
+
+		if (solver.solve (0) != SATResult.sat) {
+			System.err.println ("problem is not satisfiable");
+			return;
+		}
+
+		Model model     = solver.getModel ();
+		int   variables = encoding.getAmountOfSATVariables ();
+
+		long time_incremental = 0;
+		long time_fresh       = 0;
+		int  tested           = 0;
+
+		for (int i_variable = 1; (i_variable <= variables) && (tested < hints); i_variable ++) {
+			if (! model.isTrue (i_variable)) continue;
+
+			tested ++;
+
+			long start = System.nanoTime ();
+			solver.assume (-i_variable);
+			SATResult result_incremental = solver.solve (0);
+			time_incremental += System.nanoTime () - start;
+
+			start = System.nanoTime ();
+			CDCLSolver fresh_solver = new CDCLSolver ();
+			encoding.encodeToSAT (fresh_solver);
+			fresh_solver.addUnit (-i_variable);
+			SATResult result_fresh = fresh_solver.solve (0);
+			time_fresh += System.nanoTime () - start;
+
+			if (result_incremental != result_fresh) {
+				System.err.println ("results differ for variable " + i_variable);
+				System.exit (1);
+			}
+		}
+
+		double ms_incremental = time_incremental / 1e6 / Math.max (tested, 1);
+		double ms_fresh       = time_fresh       / 1e6 / Math.max (tested, 1);
+
+		System.out.printf ("%d hints: assumptions %9.2f ms, new solver %9.2f ms, speedup %6.1fx%n", tested, ms_incremental, ms_fresh, ms_fresh / ms_incremental);
+	}
+
+	/*
+	 * ===============================================================================
+	 * exactly one strategies
+	 * ===============================================================================
+	 */
+
+	protected static void benchmarkCardinality (String filename, int seconds)
+	{
+		Problem problem = readProblem (filename);
+
+		for (CardinalityEncoding i_encoding : CardinalityEncoding.values ()) {
+			ProblemEncodingSimple encoding = new ProblemEncodingSimple (problem);
+
+			encoding.setPiecePlacesEncoding (i_encoding);
+			encoding.setPlacePiecesEncoding (i_encoding);
+			encoding.setDiamondColorsEncoding (i_encoding);
+
+			ClauseCounter counter = new ClauseCounter ();
+			encoding.encodeToSAT (counter);
+
+			CDCLSolver solver = new CDCLSolver ();
+
+			long start = System.nanoTime ();
+			encoding.encodeToSAT (solver);
+			SATResult result = solver.solve (System.currentTimeMillis () + 1000L * seconds);
+			long time = System.nanoTime () - start;
+
+			System.out.printf ("%-10s: %8d variables, %9d clauses, %9.2f ms, %s%n", i_encoding, encoding.getAmountOfSATVariables (), counter.getAmountOfClauses (), time / 1e6, result);
+		}
+	}
+
+	/*
+	 * ===============================================================================
+	 * encodings
+	 * ===============================================================================
+	 */
+
+	protected static void benchmarkEncodings (String filename, int seconds)
+	{
+		Problem problem = readProblem (filename);
+
+		ProblemEncodingSimple[] encodings = {new ProblemEncodingOrder (problem),
+						     new ProblemEncodingOrderRedundant (problem),
+						     new ProblemEncodingRegular (problem),
+						     new ProblemEncodingMultiset (problem)};
+		String[]                names     = {"order", "order-redundant", "regular", "multiset"};
+
+		for (int i = 0; i < encodings.length; i++) {
+			ClauseCounter counter = new ClauseCounter ();
+			encodings[i].encodeToSAT (counter);
+
+			CDCLSolver solver = new CDCLSolver ();
+
+			long start = System.nanoTime ();
+			encodings[i].encodeToSAT (solver);
+			SATResult result = solver.solve (System.currentTimeMillis () + 1000L * seconds);
+			long time = System.nanoTime () - start;
+
+			System.out.printf ("%-15s: %8d variables, %9d clauses, %10.2f ms, %s%n", names[i], encodings[i].getAmountOfSATVariables (), counter.getAmountOfClauses (), time / 1e6, result);
+
+			solver.printStatistics ();
+		}
+	}
+}
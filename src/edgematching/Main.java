@@ -21,17 +21,67 @@ public class Main
 	protected static Problem m_problem;
 
 	protected enum m_enum_solvers {
-		minisat, picosat, minisat_contrasat, cryptominisat
+		minisat, picosat, minisat_contrasat, cryptominisat, cdcl
 	};
 
 	protected static m_enum_solvers m_solver;
+
+	/*
+	 * solvers run in parallel (-p), empty if only m_solver is used
+	 */
+	protected static ArrayList<m_enum_solvers> m_portfolio;
 	
 	protected enum m_enum_encodings {
-		simple, redundant, order, order_redundant
+		simple, redundant, order, order_redundant, regular, multiset
 	};
 
 	protected static m_enum_encodings m_encoding;
 
+	/*
+	 * if set, clauses are streamed to the solver while encoding
+	 */
+	protected static DIMACSHeaderMode m_stream_mode;
+
+	/*
+	 * wall-clock and cpu-time limit of the solver in milliseconds, 0 = none
+	 */
+	protected static long m_time_limit;
+	protected static long m_cpu_limit;
+
+	/*
+	 * enumerate solutions instead of solving once (-e),
+	 * at most m_enumeration_limit of them (0 = all)
+	 */
+	protected static boolean m_enumerate;
+	protected static long    m_enumeration_limit;
+
+	/*
+	 * threads used for encoding, 0 = available processors
+	 */
+	protected static int m_encoding_threads;
+
+	/*
+	 * if set, the formula is simplified before solving (see CNFSimplifier)
+	 */
+	protected static boolean m_simplify;
+
+	/*
+	 * if set, impossible placements are pruned before encoding (see PlacementDomains)
+	 */
+	protected static boolean m_prune;
+
+	/*
+	 * strategies of the "exactly one" constraints (-exactly-one), null = default of the encoding
+	 */
+	protected static CardinalityEncoding m_piece_places_encoding;
+	protected static CardinalityEncoding m_place_pieces_encoding;
+	protected static CardinalityEncoding m_diamond_colors_encoding;
+
+	/*
+	 * encoding of the diamond colors (-colors), null = direct
+	 */
+	protected static ColorEncoding m_color_encoding;
+
 	/*
 	 * main function
 	 *
@@ -49,6 +99,22 @@ public class Main
 		readProblem ();
 		m_problem.printProblem ();
 
+		ProblemChecker checker = new ProblemChecker (m_problem);
+
+		if (! checker.check ()) {
+			System.err.println ("The problem has no solution: " + checker.getReason ());
+			System.err.println ("result: " + SATResult.unsat);
+			return;
+		}
+
+		if (m_prune) {
+			System.err.println ("pruning placements ...");
+
+			if (! m_problem.prunePlacements ()) System.err.println ("The problem has no solution, the formula will be unsatisfiable");
+
+			m_problem.getPlacementDomains ().printStatistics ();
+		}
+
 		SATSolvable sat_problem;
 		Problem     problem_encoding;
 
@@ -68,6 +134,16 @@ public class Main
 				sat_problem      = temp_problem_order;
 				problem_encoding = temp_problem_order;
 				break;
+			case regular:
+				ProblemEncodingRegular temp_problem_regular = new ProblemEncodingRegular (m_problem);
+				sat_problem      = temp_problem_regular;
+				problem_encoding = temp_problem_regular;
+				break;
+			case multiset:
+				ProblemEncodingMultiset temp_problem_multiset = new ProblemEncodingMultiset (m_problem);
+				sat_problem      = temp_problem_multiset;
+				problem_encoding = temp_problem_multiset;
+				break;
 			case order_redundant:
 			default:
 				ProblemEncodingOrderRedundant temp_problem_order_redundant = new ProblemEncodingOrderRedundant (m_problem);
@@ -76,9 +152,96 @@ public class Main
 				break;
 		};
 
+		if (sat_problem instanceof ProblemEncodingSimple) {
+			ProblemEncodingSimple encoding_simple = (ProblemEncodingSimple) sat_problem;
+
+			if (m_piece_places_encoding   != null) encoding_simple.setPiecePlacesEncoding (m_piece_places_encoding);
+			if (m_place_pieces_encoding   != null) encoding_simple.setPlacePiecesEncoding (m_place_pieces_encoding);
+			if (m_diamond_colors_encoding != null) encoding_simple.setDiamondColorsEncoding (m_diamond_colors_encoding);
+			if (m_color_encoding          != null) encoding_simple.setColorEncoding (m_color_encoding);
+		}
+
+		if (! sat_problem.isEncodable ()) {
+			System.err.println ("The problem is too large to be encoded (more than " + VariableAllocator.m_max_variable + " variables)");
+			System.exit (1);
+		}
+
+		if ((m_encoding_threads > 0) && (sat_problem instanceof ProblemEncodingSimple)) {
+			((ProblemEncodingSimple) sat_problem).setEncodingThreads (m_encoding_threads);
+		}
+
+		long deadline = (m_time_limit > 0 ? System.currentTimeMillis () + m_time_limit : 0);
+
+		if (m_enumerate) {
+			if (m_simplify) System.err.println ("simplification changes the amount of models, enumerating without...");
+
+			enumerateSolutions (sat_problem, problem_encoding, deadline);
+			return;
+		}
+
+		if (m_simplify) sat_problem = new SimplifiedProblem (sat_problem);
+
 		SATSolver solver;
 
-		switch (m_solver) {
+		if (m_solver == m_enum_solvers.cdcl) {
+			solver = new CDCLSolver ();
+		} else if (m_portfolio.isEmpty ()) {
+			solver = createSolver (m_solver);
+		} else {
+			PortfolioSolver portfolio = new PortfolioSolver ();
+
+			for (m_enum_solvers i_solver : m_portfolio) {
+				portfolio.addSolver (i_solver.toString (), createSolver (i_solver));
+			}
+
+			solver = portfolio;
+		}
+
+		SATResult result = solver.solveSAT (sat_problem, deadline);
+
+		System.err.println ("result: " + result);
+
+		problem_encoding.printSolution ();
+	}
+
+	/*
+	 * enumerate the solutions with the built-in incremental solver
+	 * --> prints the amount of solutions and the first one
+	 */
+	protected static void enumerateSolutions (SATSolvable satProblem, Problem problemEncoding, long deadline)
+	{
+		if (m_solver != m_enum_solvers.cdcl) {
+			System.err.println ("enumeration needs an incremental solver, using cdcl...");
+		}
+
+		if (m_encoding == m_enum_encodings.simple) {
+			System.err.println ("the simple encoding allows a piece on more than one place, such placements are counted too...");
+		}
+
+		CDCLSolver         solver     = new CDCLSolver ();
+		SolutionEnumerator enumerator = new SolutionEnumerator (satProblem, solver);
+
+		enumerator.enumerate (m_enumeration_limit, deadline);
+
+		solver.printStatistics ();
+		enumerator.printStatistics ();
+
+		System.out.println ("solutions: " + enumerator.getAmountOfSolutions () + (enumerator.isComplete () ? "" : " (incomplete)"));
+
+		if (enumerator.getModels ().isEmpty ()) return;
+
+		satProblem.decodeSolution (enumerator.getModels ().get (0));
+		problemEncoding.printSolution ();
+	}
+
+	/*
+	 * create the wrapper of an external solver with the options of the command line
+	 */
+	protected static ExternalSATSolver createSolver (m_enum_solvers solverType)
+	{
+		ExternalSATSolver solver;
+
+		switch (solverType) {
 			case picosat:
 				solver = new PicoSAT ("../solvers/picosat");
 				break;
@@ -94,9 +257,10 @@ public class Main
 				break;
 		};
 
-		solver.solveSAT (sat_problem);
+		solver.setStreaming (m_stream_mode);
+		solver.setCPULimit (m_cpu_limit);
 
-		problem_encoding.printSolution ();
+		return solver;
 	}
 
 	/*
@@ -105,11 +269,24 @@ public class Main
 	protected static void printHelp ()
 	{
 		System.out.println ("Arguments:");
-		System.out.println ("[-s solver] [-c encoding] input-file");
+		System.out.println ("[-s solver | -p solver,solver,...] [-c encoding] [-stream header] [-t seconds] [-cpu seconds] [-e limit] [-j threads] [-simplify] [-prune] [-exactly-one family=strategy,...] [-colors encoding] input-file");
 		System.out.println ("for help: -h");
 		System.out.println ("");
-		System.out.println ("with solver being one of \"minisat\", \"minisat-contrasat\", \"cryptominisat\" and \"picosat\",");
-		System.out.println (" encoding being one of \"simple\", \"redundant\", \"order\" and \"order-redundant\".");
+		System.out.println ("with solver being one of \"minisat\", \"minisat-contrasat\", \"cryptominisat\", \"picosat\" and \"cdcl\" (built-in),");
+		System.out.println (" encoding being one of \"simple\", \"redundant\", \"order\", \"order-redundant\", \"regular\" and \"multiset\".");
+		System.out.println ("-stream pipes the clauses into the solver while encoding,");
+		System.out.println (" header being \"counted\" (exact, encodes twice) or \"provisional\" (clause count 0).");
+		System.out.println ("-p runs a portfolio of solvers on the same formula, the first answer wins.");
+		System.out.println ("-t and -cpu limit wall-clock and cpu-time of the solver, it is killed afterwards.");
+		System.out.println ("-e counts the solutions with the cdcl solver, limit being a number or \"all\".");
+		System.out.println ("-j sets the amount of threads for encoding (default: available processors).");
+		System.out.println ("-simplify removes units, duplicate, subsumed clauses and pure literals before solving.");
+		System.out.println ("-prune leaves out placements of pieces that cannot match their neighbours (arc-consistency).");
+		System.out.println ("-exactly-one sets how \"exactly one\" is encoded, family being \"pieces\" (piece on places),");
+		System.out.println (" \"places\" (place with pieces) or \"colors\" (color of diamonds) and strategy one of");
+		System.out.println (" \"pairwise\", \"sequential\", \"commander\", \"product\", \"binary\" and \"ladder\".");
+		System.out.println ("-colors sets how the colors of the diamonds are encoded, \"direct\" (a variable per color, default)");
+		System.out.println (" or \"log\" (the index of the color in bits).");
 	}
 
 	/*
@@ -126,9 +303,22 @@ public class Main
 		}
 
 		// defaultts
-		m_solver   = m_enum_solvers.minisat;
-		m_encoding = m_enum_encodings.order_redundant;
-		m_filename = null;
+		m_solver           = m_enum_solvers.minisat;
+		m_encoding         = m_enum_encodings.order_redundant;
+		m_portfolio        = new ArrayList<m_enum_solvers> ();
+		m_filename         = null;
+		m_stream_mode      = null;
+		m_time_limit       = 0;
+		m_cpu_limit        = 0;
+		m_enumerate        = false;
+		m_encoding_threads = 0;
+		m_simplify         = false;
+		m_prune            = false;
+
+		m_piece_places_encoding   = null;
+		m_place_pieces_encoding   = null;
+		m_diamond_colors_encoding = null;
+		m_color_encoding          = null;
 
 		for (Iterator<String> i_string = arguments.iterator (); i_string.hasNext (); ) {
 			String current_string = i_string.next ();
@@ -136,18 +326,23 @@ public class Main
 			if (current_string.equals ("-s")) {
 				// solver
 				if (i_string.hasNext ()) {
-					String solver_string = i_string.next ();
-					if (solver_string.equals ("minisat")) {
-						m_solver = m_enum_solvers.minisat;
-					} else if (solver_string.equals ("minisat-contrasat")) {
-						m_solver = m_enum_solvers.minisat_contrasat;
-					} else if (solver_string.equals ("cryptominisat")) {
-						m_solver = m_enum_solvers.cryptominisat;
-					} else if (solver_string.equals ("picosat")) {
-						m_solver = m_enum_solvers.picosat;
-					} else {
-						printHelp ();
-						System.exit (1);
+					m_solver = parseSolver (i_string.next ());
+				} else {
+					printHelp ();
+					System.exit (1);
+				}
+			} else if (current_string.equals ("-p")) {
+				// portfolio
+				if (i_string.hasNext ()) {
+					for (String i_solver_string : i_string.next ().split (",")) {
+						m_enum_solvers portfolio_solver = parseSolver (i_solver_string);
+
+						if (portfolio_solver == m_enum_solvers.cdcl) {
+							System.err.println ("The portfolio only runs external solvers");
+							System.exit (1);
+						}
+
+						m_portfolio.add (portfolio_solver);
 					}
 				} else {
 					printHelp ();
@@ -165,6 +360,110 @@ public class Main
 						m_encoding = m_enum_encodings.order;
 					} else if (encoding_string.equals ("order-redundant")) {
 						m_encoding = m_enum_encodings.order_redundant;
+					} else if (encoding_string.equals ("regular")) {
+						m_encoding = m_enum_encodings.regular;
+					} else if (encoding_string.equals ("multiset")) {
+						m_encoding = m_enum_encodings.multiset;
+					} else {
+						printHelp ();
+						System.exit (1);
+					}
+				} else {
+					printHelp ();
+					System.exit (1);
+				}
+			} else if (current_string.equals ("-stream")) {
+				// streaming mode
+				if (i_string.hasNext ()) {
+					String stream_string = i_string.next ();
+					if (stream_string.equals ("counted")) {
+						m_stream_mode = DIMACSHeaderMode.counted;
+					} else if (stream_string.equals ("provisional")) {
+						m_stream_mode = DIMACSHeaderMode.provisional;
+					} else {
+						printHelp ();
+						System.exit (1);
+					}
+				} else {
+					printHelp ();
+					System.exit (1);
+				}
+			} else if (current_string.equals ("-t") || current_string.equals ("-cpu")) {
+				// time limits
+				if (i_string.hasNext ()) {
+					long limit = 0;
+
+					try {
+						limit = (long) (Double.parseDouble (i_string.next ()) * 1000);
+					} catch (NumberFormatException exception) {
+						printHelp ();
+						System.exit (1);
+					}
+
+					if (current_string.equals ("-t")) {
+						m_time_limit = limit;
+					} else {
+						m_cpu_limit = limit;
+					}
+				} else {
+					printHelp ();
+					System.exit (1);
+				}
+			} else if (current_string.equals ("-e")) {
+				// enumeration
+				if (i_string.hasNext ()) {
+					String limit_string = i_string.next ();
+
+					m_enumerate         = true;
+					m_enumeration_limit = 0;
+
+					if (! limit_string.equals ("all")) {
+						try {
+							m_enumeration_limit = Long.parseLong (limit_string);
+						} catch (NumberFormatException exception) {
+							printHelp ();
+							System.exit (1);
+						}
+					}
+				} else {
+					printHelp ();
+					System.exit (1);
+				}
+			} else if (current_string.equals ("-j")) {
+				// encoding threads
+				if (i_string.hasNext ()) {
+					try {
+						m_encoding_threads = Integer.parseInt (i_string.next ());
+					} catch (NumberFormatException exception) {
+						printHelp ();
+						System.exit (1);
+					}
+				} else {
+					printHelp ();
+					System.exit (1);
+				}
+			} else if (current_string.equals ("-simplify")) {
+				m_simplify = true;
+			} else if (current_string.equals ("-prune")) {
+				m_prune = true;
+			} else if (current_string.equals ("-exactly-one")) {
+				// strategies per family
+				if (i_string.hasNext ()) {
+					for (String i_family_string : i_string.next ().split (",")) {
+						parseCardinalityEncoding (i_family_string);
+					}
+				} else {
+					printHelp ();
+					System.exit (1);
+				}
+			} else if (current_string.equals ("-colors")) {
+				// encoding of the diamond colors
+				if (i_string.hasNext ()) {
+					String colors_string = i_string.next ();
+					if (colors_string.equals ("direct")) {
+						m_color_encoding = ColorEncoding.direct;
+					} else if (colors_string.equals ("log")) {
+						m_color_encoding = ColorEncoding.log;
 					} else {
 						printHelp ();
 						System.exit (1);
@@ -187,6 +486,63 @@ public class Main
 		}
 	}
 
+	/*
+	 * family=strategy on the command line --> strategy of the family
+	 */
+	protected static void parseCardinalityEncoding (String familyString)
+	{
+		String[] parts = familyString.split ("=");
+
+		CardinalityEncoding encoding = null;
+
+		if (parts.length == 2) {
+			try {
+				encoding = CardinalityEncoding.valueOf (parts[1]);
+			} catch (IllegalArgumentException exception) {
+				encoding = null;
+			}
+		}
+
+		if (encoding == null) {
+			printHelp ();
+			System.exit (1);
+		}
+
+		if (parts[0].equals ("pieces")) {
+			m_piece_places_encoding = encoding;
+		} else if (parts[0].equals ("places")) {
+			m_place_pieces_encoding = encoding;
+		} else if (parts[0].equals ("colors")) {
+			m_diamond_colors_encoding = encoding;
+		} else {
+			printHelp ();
+			System.exit (1);
+		}
+	}
+
+	/*
+	 * name of a solver on the command line --> enum
+	 */
+	protected static m_enum_solvers parseSolver (String solverString)
+	{
+		if (solverString.equals ("minisat")) {
+			return m_enum_solvers.minisat;
+		} else if (solverString.equals ("minisat-contrasat")) {
+			return m_enum_solvers.minisat_contrasat;
+		} else if (solverString.equals ("cryptominisat")) {
+			return m_enum_solvers.cryptominisat;
+		} else if (solverString.equals ("picosat")) {
+			return m_enum_solvers.picosat;
+		} else if (solverString.equals ("cdcl")) {
+			return m_enum_solvers.cdcl;
+		}
+
+		printHelp ();
+		System.exit (1);
+
+		return null;
+	}
+
 	/*
 	 * read problem out of file to m_problem
 	 * and check for valid problem
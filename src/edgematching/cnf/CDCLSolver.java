@@ -0,0 +1,1314 @@
+package edgematching.cnf;
+
+import java.util.*;
+
+/*
+ * in-process cdcl sat-solver (no external binary, no DIMACS round-trip)
+ * --> reads the clauses directly out of the literal arena of a CNFFormula
+ *
+ * techniques (as in minisat):
+ *  - two watched literals with blocking literals
+ *  - 1UIP conflict analysis with recursive minimization of the learnt clause
+ *  - VSIDS variable heap and phase saving
+ *  - luby restarts
+ *  - reduction of the learnt clauses by LBD and activity
+ *
+ * the solver is incremental (see IncrementalSATSolver):
+ * clauses can be added and assumptions made between calls of solve,
+ * learnt clauses and variable activities are kept
+ *
+ * literals are encoded internally as 2 * variable (positive) and 2 * variable + 1 (negative),
+ * clauses are stored in one int-arena: [size, flags, activity, literals ...]
+ */
+public class CDCLSolver
+	implements SATSolver, IncrementalSATSolver
+{
+	/*
+	 * clause arena
+	 * --> flags: bit 0 learnt, bit 1 deleted, bits 2.. LBD
+	 */
+	protected int[] m_arena;
+	protected int   m_arena_size;
+	protected int   m_arena_wasted;
+
+	protected static final int m_header_size  = 3;
+	protected static final int m_flag_learnt  = 1;
+	protected static final int m_flag_deleted = 2;
+
+	protected int[] m_learnts;
+	protected int   m_learnts_count;
+	protected int   m_max_learnts;
+
+	/*
+	 * watches per literal: pairs of (clause, blocking literal)
+	 * --> m_watches[l] contains the clauses watching literal l
+	 */
+	protected int[][] m_watches;
+	protected int[]   m_watches_size;
+
+	/*
+	 * assignment
+	 * m_values: per literal 1 (true), -1 (false), 0 (unassigned)
+	 * m_levels / m_reasons: per variable, reason -1 for decisions and top-level units
+	 */
+	protected int    m_variables_count;
+	protected byte[] m_values;
+	protected int[]  m_levels;
+	protected int[]  m_reasons;
+	protected byte[] m_polarity;
+
+	protected int[] m_trail;
+	protected int   m_trail_size;
+	protected int[] m_trail_limits;
+	protected int   m_decision_level;
+	protected int   m_propagated;
+
+	/*
+	 * VSIDS: max-heap of variables ordered by activity
+	 */
+	protected double[] m_activity;
+	protected double   m_activity_increment;
+	protected int[]    m_heap;
+	protected int      m_heap_size;
+	protected int[]    m_heap_positions;
+
+	protected float m_clause_increment;
+
+	protected static final double m_variable_decay = 0.95;
+	protected static final float  m_clause_decay   = 0.999f;
+	protected static final int    m_restart_base   = 100;
+
+	/*
+	 * scratch space of conflict analysis
+	 */
+	protected byte[] m_seen;
+	protected int[]  m_learnt;
+	protected int    m_learnt_size;
+	protected int[]  m_analyze_stack;
+	protected int[]  m_to_clear;
+	protected int    m_to_clear_size;
+	protected int[]  m_level_stamps;
+	protected int    m_level_stamp;
+
+	/*
+	 * false, if the clauses are unsatisfiable at level 0
+	 */
+	protected boolean m_ok;
+
+	/*
+	 * incremental interface: clause under construction (addLiteral),
+	 * assumptions of the next solve and failed assumptions of the last one (per internal literal)
+	 */
+	protected int[]     m_clause_buffer;
+	protected int       m_clause_buffer_size;
+	protected int[]     m_assumptions;
+	protected int       m_assumptions_count;
+	protected boolean[] m_failed;
+
+	protected SATResult        m_result;
+	protected Model            m_solution;
+	protected volatile boolean m_cancelled;
+
+	/*
+	 * statistics
+	 */
+	protected long m_conflicts;
+	protected long m_decisions;
+	protected long m_propagations;
+	protected long m_restarts;
+	protected long m_reductions;
+
+	public CDCLSolver ()
+	{
+		m_result    = SATResult.unknown;
+		m_solution  = null;
+		m_cancelled = false;
+
+		init (0);
+	}
+
+	/*
+	 * ===============================================================================
+	 * SATSolver interface
+	 * ===============================================================================
+	 */
+
+	public void solveSAT (SATSolvable problem)
+	{
+		solveSAT (problem, 0);
+	}
+
+	public SATResult solveSAT (SATSolvable problem, long deadline)
+	{
+		m_cancelled = false;
+		m_result    = SATResult.unknown;
+		m_solution  = null;
+
+		System.err.println ("encoding problem...");
+		CNFFormula formula = problem.encodeToSAT ();
+
+		System.err.println ("solving...");
+		solveFormula (formula, deadline);
+		printStatistics ();
+
+		System.err.println ("checking solution...");
+		if (m_result != SATResult.sat) return m_result;
+
+		formula.setSolution (m_solution);
+
+		System.err.println ("decoding solution...");
+		problem.decodeSolution (formula);
+
+		return m_result;
+	}
+
+	/*
+	 * solve a formula, the model can be read with getModel
+	 */
+	public SATResult solveFormula (CNFFormula formula, long deadline)
+	{
+		loadFormula (formula);
+
+		return solve (deadline);
+	}
+
+	public boolean getSatisfiable ()
+	{
+		return (m_result == SATResult.sat);
+	}
+
+	public SATResult getResult ()
+	{
+		return m_result;
+	}
+
+	public Model getModel ()
+	{
+		return m_solution;
+	}
+
+	/*
+	 * stops the search at the next check (every 256 conflicts / 4096 decisions)
+	 */
+	public void cancel ()
+	{
+		m_cancelled = true;
+	}
+
+	public void printStatistics ()
+	{
+		System.err.println ("cdcl: " + m_conflicts + " conflicts, " + m_decisions + " decisions, " +
+				m_propagations + " propagations, " + m_restarts + " restarts, " + m_reductions + " reductions");
+	}
+
+	/*
+	 * ===============================================================================
+	 * IncrementalSATSolver / ClauseSink interface
+	 * ===============================================================================
+	 */
+
+	public void addLiteral (int literal)
+	{
+		if (literal != 0) {
+			if (m_clause_buffer_size == m_clause_buffer.length) {
+				m_clause_buffer = Arrays.copyOf (m_clause_buffer, 2 * m_clause_buffer.length);
+			}
+
+			m_clause_buffer[m_clause_buffer_size ++] = literal;
+			return;
+		}
+
+		addClause (m_clause_buffer, m_clause_buffer_size);
+
+		m_clause_buffer_size = 0;
+	}
+
+	public void addUnit (int literal)
+	{
+		m_clause_buffer[0] = literal;
+		addClause (m_clause_buffer, 1);
+	}
+
+	public void addBinary (int literal1, int literal2)
+	{
+		m_clause_buffer[0] = literal1;
+		m_clause_buffer[1] = literal2;
+		addClause (m_clause_buffer, 2);
+	}
+
+	public void addTernary (int literal1, int literal2, int literal3)
+	{
+		m_clause_buffer[0] = literal1;
+		m_clause_buffer[1] = literal2;
+		m_clause_buffer[2] = literal3;
+		addClause (m_clause_buffer, 3);
+	}
+
+	/*
+	 * add a clause (DIMACS literals), the array is not modified
+	 */
+	public void addClause (int[] literals, int length)
+	{
+		if (m_learnt.length < length) m_learnt = Arrays.copyOf (m_learnt, length);
+
+		int max_variable = 0;
+
+		for (int i = 0; i < length; i++) {
+			max_variable = Math.max (max_variable, Math.abs (literals[i]));
+			m_learnt[i]  = toInternal (literals[i]);
+		}
+
+		ensureVariables (max_variable);
+		addInternalClause (m_learnt, length);
+	}
+
+	public void assume (int literal)
+	{
+		ensureVariables (Math.abs (literal));
+
+		if (m_assumptions_count == m_assumptions.length) {
+			m_assumptions = Arrays.copyOf (m_assumptions, 2 * m_assumptions.length);
+		}
+
+		m_assumptions[m_assumptions_count ++] = toInternal (literal);
+	}
+
+	public int getValue (int literal)
+	{
+		if (m_solution == null) return 0;
+
+		return (m_solution.satisfies (literal) ? literal : -literal);
+	}
+
+	public boolean isFailed (int literal)
+	{
+		int internal = toInternal (literal);
+
+		return ((internal < m_failed.length) && m_failed[internal]);
+	}
+
+	/*
+	 * ===============================================================================
+	 * setup
+	 * ===============================================================================
+	 */
+
+	/*
+	 * reset the solver to an empty formula with the variables {1, ..., variables}
+	 */
+	protected void init (int variables)
+	{
+		m_variables_count = 0;
+
+		m_arena        = new int [1024];
+		m_arena_size   = 0;
+		m_arena_wasted = 0;
+
+		m_learnts       = new int [256];
+		m_learnts_count = 0;
+		m_max_learnts   = 0;
+
+		m_watches      = new int [2][];
+		m_watches_size = new int [2];
+
+		m_values   = new byte [2];
+		m_levels   = new int [1];
+		m_reasons  = new int [1];
+		m_polarity = new byte [1];
+
+		m_trail          = new int [1];
+		m_trail_size     = 0;
+		m_trail_limits   = new int [1];
+		m_decision_level = 0;
+		m_propagated     = 0;
+
+		m_activity           = new double [1];
+		m_activity_increment = 1.0;
+		m_heap               = new int [1];
+		m_heap_size          = 0;
+		m_heap_positions     = new int [1];
+		m_clause_increment   = 1.0f;
+
+		m_seen          = new byte [1];
+		m_learnt        = new int [1];
+		m_analyze_stack = new int [1];
+		m_to_clear      = new int [1];
+		m_level_stamps  = new int [1];
+		m_level_stamp   = 0;
+
+		m_clause_buffer      = new int [16];
+		m_clause_buffer_size = 0;
+		m_assumptions        = new int [16];
+		m_assumptions_count  = 0;
+		m_failed             = new boolean [2];
+
+		m_ok = true;
+
+		m_conflicts    = 0;
+		m_decisions    = 0;
+		m_propagations = 0;
+		m_restarts     = 0;
+		m_reductions   = 0;
+
+		ensureVariables (variables);
+	}
+
+	/*
+	 * make the variables {1, ..., variables} known to the solver
+	 * --> arrays grow at least by factor 2, new variables are inserted into the heap
+	 */
+	protected void ensureVariables (int variables)
+	{
+		if (variables <= m_variables_count) return;
+
+		int capacity = m_levels.length - 1;
+
+		if (variables > capacity) {
+			capacity = Math.max (variables, 2 * capacity);
+
+			int size     = capacity + 1;
+			int literals = 2 * size;
+
+			m_watches      = Arrays.copyOf (m_watches, literals);
+			m_watches_size = Arrays.copyOf (m_watches_size, literals);
+			m_values       = Arrays.copyOf (m_values, literals);
+			m_failed       = Arrays.copyOf (m_failed, literals);
+
+			m_levels         = Arrays.copyOf (m_levels, size);
+			m_reasons        = Arrays.copyOf (m_reasons, size);
+			m_polarity       = Arrays.copyOf (m_polarity, size);
+			m_trail          = Arrays.copyOf (m_trail, size);
+			m_trail_limits   = Arrays.copyOf (m_trail_limits, size);
+			m_activity       = Arrays.copyOf (m_activity, size);
+			m_heap           = Arrays.copyOf (m_heap, size);
+			m_heap_positions = Arrays.copyOf (m_heap_positions, size);
+			m_seen           = Arrays.copyOf (m_seen, size);
+			m_learnt         = Arrays.copyOf (m_learnt, size);
+			m_analyze_stack  = Arrays.copyOf (m_analyze_stack, size);
+			m_to_clear       = Arrays.copyOf (m_to_clear, size);
+			m_level_stamps   = Arrays.copyOf (m_level_stamps, size);
+		}
+
+		for (int i_variable = m_variables_count + 1; i_variable <= variables; i_variable ++) {
+			m_polarity[i_variable]       = 1;
+			m_reasons[i_variable]        = -1;
+			m_heap_positions[i_variable] = -1;
+
+			heapInsert (i_variable);
+		}
+
+		m_variables_count = variables;
+	}
+
+	/*
+	 * copy all clauses of the formula into the solver
+	 * --> duplicate literals are removed, tautologies and satisfied clauses are skipped
+	 */
+	protected void loadFormula (CNFFormula formula)
+	{
+		init (formula.getAmountOfVariables ());
+
+		int[] clause = new int [16];
+
+		for (ClauseIterator i_clause = formula.clauseIterator (); i_clause.next (); ) {
+			if (clause.length < i_clause.getSize ()) clause = new int [2 * i_clause.getSize ()];
+
+			int[] literals = i_clause.getLiterals ();
+			int   size     = 0;
+
+			for (int i = i_clause.getStart (); i < i_clause.getEnd (); i++) {
+				clause[size ++] = toInternal (literals[i]);
+			}
+
+			if (! addInternalClause (clause, size)) break;
+		}
+	}
+
+	/*
+	 * add a clause at level 0 (literals in internal encoding, the array is modified)
+	 * --> returns false if the formula became unsatisfiable
+	 */
+	protected boolean addInternalClause (int[] clause, int size)
+	{
+		if (! m_ok) return false;
+
+		// normalize: remove duplicates and false literals, skip tautologies and satisfied clauses
+		int new_size = 0;
+
+		for (int i = 0; i < size; i++) {
+			int literal = clause[i];
+
+			if (m_values[literal] == 1) return true;
+			if (m_values[literal] == -1) continue;
+
+			boolean duplicate = false;
+
+			for (int j = 0; j < new_size; j++) {
+				if (clause[j] == literal) {
+					duplicate = true;
+					break;
+				}
+
+				if (clause[j] == (literal ^ 1)) return true;
+			}
+
+			if (! duplicate) clause[new_size ++] = literal;
+		}
+
+		if (new_size == 0) {
+			m_ok = false;
+			return false;
+		}
+
+		if (new_size == 1) {
+			enqueue (clause[0], -1);
+
+			if (propagate () != -1) {
+				m_ok = false;
+				return false;
+			}
+
+			return true;
+		}
+
+		int clause_reference = allocateClause (clause, new_size, false, 0);
+
+		attachClause (clause_reference);
+
+		return true;
+	}
+
+	protected static int toInternal (int literal)
+	{
+		return (literal > 0 ? 2 * literal : 2 * (-literal) + 1);
+	}
+
+	protected static int toExternal (int literal)
+	{
+		return ((literal & 1) == 0 ? literal >> 1 : -(literal >> 1));
+	}
+
+	/*
+	 * ===============================================================================
+	 * clause arena and watches
+	 * ===============================================================================
+	 */
+
+	protected int allocateClause (int[] literals, int size, boolean learnt, int lbd)
+	{
+		if (m_arena_size + m_header_size + size > m_arena.length) {
+			m_arena = Arrays.copyOf (m_arena, Math.max (2 * m_arena.length, m_arena_size + m_header_size + size));
+		}
+
+		int clause_reference = m_arena_size;
+
+		m_arena[clause_reference]     = size;
+		m_arena[clause_reference + 1] = (learnt ? m_flag_learnt : 0) | (lbd << 2);
+		m_arena[clause_reference + 2] = Float.floatToRawIntBits (0.0f);
+
+		System.arraycopy (literals, 0, m_arena, clause_reference + m_header_size, size);
+
+		m_arena_size += m_header_size + size;
+
+		if (learnt) {
+			if (m_learnts_count == m_learnts.length) m_learnts = Arrays.copyOf (m_learnts, 2 * m_learnts.length);
+
+			m_learnts[m_learnts_count ++] = clause_reference;
+		}
+
+		return clause_reference;
+	}
+
+	protected void attachClause (int clauseReference)
+	{
+		int first  = m_arena[clauseReference + m_header_size];
+		int second = m_arena[clauseReference + m_header_size + 1];
+
+		addWatch (first, clauseReference, second);
+		addWatch (second, clauseReference, first);
+	}
+
+	protected final void addWatch (int literal, int clauseReference, int blocker)
+	{
+		int[] watches = m_watches[literal];
+		int   size    = m_watches_size[literal];
+
+		if (watches == null) {
+			watches = new int [8];
+			m_watches[literal] = watches;
+		} else if (size + 2 > watches.length) {
+			watches = Arrays.copyOf (watches, 2 * watches.length);
+			m_watches[literal] = watches;
+		}
+
+		watches[size]     = clauseReference;
+		watches[size + 1] = blocker;
+
+		m_watches_size[literal] = size + 2;
+	}
+
+	protected final boolean isLearnt (int clauseReference)
+	{
+		return ((m_arena[clauseReference + 1] & m_flag_learnt) != 0);
+	}
+
+	protected final int getLBD (int clauseReference)
+	{
+		return (m_arena[clauseReference + 1] >>> 2);
+	}
+
+	protected final float getClauseActivity (int clauseReference)
+	{
+		return Float.intBitsToFloat (m_arena[clauseReference + 2]);
+	}
+
+	/*
+	 * true, if the clause is the reason of an assignment and must not be deleted
+	 */
+	protected final boolean isLocked (int clauseReference)
+	{
+		int first = m_arena[clauseReference + m_header_size];
+
+		return ((m_values[first] == 1) && (m_reasons[first >> 1] == clauseReference));
+	}
+
+	/*
+	 * ===============================================================================
+	 * assignment and propagation
+	 * ===============================================================================
+	 */
+
+	protected final void enqueue (int literal, int reason)
+	{
+		int variable = literal >> 1;
+
+		m_values[literal]     = 1;
+		m_values[literal ^ 1] = -1;
+		m_levels[variable]    = m_decision_level;
+		m_reasons[variable]   = reason;
+
+		m_trail[m_trail_size ++] = literal;
+	}
+
+	/*
+	 * unit propagation with two watched literals
+	 * --> returns the conflicting clause, -1 if there is no conflict
+	 */
+	protected int propagate ()
+	{
+		int[]  arena  = m_arena;
+		byte[] values = m_values;
+
+		while (m_propagated < m_trail_size) {
+			int   false_literal = m_trail[m_propagated ++] ^ 1;
+			int[] watches       = m_watches[false_literal];
+			int   size          = m_watches_size[false_literal];
+
+			m_propagations ++;
+
+			int i = 0;
+			int j = 0;
+
+			while (i < size) {
+				int clause_reference = watches[i];
+				int blocker          = watches[i + 1];
+
+				i += 2;
+
+				if (values[blocker] == 1) {
+					watches[j ++] = clause_reference;
+					watches[j ++] = blocker;
+					continue;
+				}
+
+				int start = clause_reference + m_header_size;
+
+				// make sure the false literal is at position 1
+				if (arena[start] == false_literal) {
+					arena[start]     = arena[start + 1];
+					arena[start + 1] = false_literal;
+				}
+
+				int first = arena[start];
+
+				if ((first != blocker) && (values[first] == 1)) {
+					watches[j ++] = clause_reference;
+					watches[j ++] = first;
+					continue;
+				}
+
+				// look for a new literal to watch
+				int     clause_size = arena[clause_reference];
+				boolean found       = false;
+
+				for (int k = 2; k < clause_size; k++) {
+					int literal = arena[start + k];
+
+					if (values[literal] != -1) {
+						arena[start + 1] = literal;
+						arena[start + k] = false_literal;
+
+						addWatch (literal, clause_reference, first);
+
+						found = true;
+						break;
+					}
+				}
+
+				if (found) continue;
+
+				// clause is unit or conflicting
+				watches[j ++] = clause_reference;
+				watches[j ++] = first;
+
+				if (values[first] == -1) {
+					while (i < size) {
+						watches[j ++] = watches[i ++];
+					}
+
+					m_watches_size[false_literal] = j;
+					m_propagated = m_trail_size;
+
+					return clause_reference;
+				}
+
+				enqueue (first, clause_reference);
+			}
+
+			m_watches_size[false_literal] = j;
+		}
+
+		return -1;
+	}
+
+	protected void newDecisionLevel ()
+	{
+		m_trail_limits[m_decision_level ++] = m_trail_size;
+	}
+
+	/*
+	 * undo all assignments above level (and save their phases)
+	 */
+	protected void cancelUntil (int level)
+	{
+		if (m_decision_level <= level) return;
+
+		int limit = m_trail_limits[level];
+
+		for (int i = m_trail_size - 1; i >= limit; i--) {
+			int literal  = m_trail[i];
+			int variable = literal >> 1;
+
+			m_values[literal]     = 0;
+			m_values[literal ^ 1] = 0;
+			m_reasons[variable]   = -1;
+			m_polarity[variable]  = (byte) (literal & 1);
+
+			if (m_heap_positions[variable] < 0) heapInsert (variable);
+		}
+
+		m_trail_size     = limit;
+		m_propagated     = limit;
+		m_decision_level = level;
+	}
+
+	/*
+	 * ===============================================================================
+	 * conflict analysis
+	 * ===============================================================================
+	 */
+
+	/*
+	 * 1UIP analysis of the conflict, the learnt clause is stored in m_learnt
+	 * --> the asserting literal is at position 0, a literal of the backjump level at position 1
+	 * --> returns the backjump level
+	 */
+	protected int analyze (int conflict)
+	{
+		int[] arena      = m_arena;
+		int   path_count = 0;
+		int   literal    = -1;
+		int   index      = m_trail_size - 1;
+
+		m_learnt_size = 1;
+
+		do {
+			if (isLearnt (conflict)) bumpClause (conflict);
+
+			int size  = arena[conflict];
+			int start = conflict + m_header_size;
+
+			for (int k = (literal == -1 ? 0 : 1); k < size; k++) {
+				int other    = arena[start + k];
+				int variable = other >> 1;
+
+				if ((m_seen[variable] == 0) && (m_levels[variable] > 0)) {
+					bumpVariable (variable);
+					m_seen[variable] = 1;
+
+					if (m_levels[variable] >= m_decision_level) {
+						path_count ++;
+					} else {
+						m_learnt[m_learnt_size ++] = other;
+					}
+				}
+			}
+
+			while (m_seen[m_trail[index] >> 1] == 0) index --;
+
+			literal  = m_trail[index --];
+			conflict = m_reasons[literal >> 1];
+
+			m_seen[literal >> 1] = 0;
+			path_count --;
+		} while (path_count > 0);
+
+		m_learnt[0] = literal ^ 1;
+
+		minimizeLearnt ();
+
+		// find backjump level and move its literal to position 1
+		if (m_learnt_size == 1) return 0;
+
+		int max_index = 1;
+
+		for (int i = 2; i < m_learnt_size; i++) {
+			if (m_levels[m_learnt[i] >> 1] > m_levels[m_learnt[max_index] >> 1]) max_index = i;
+		}
+
+		int swap = m_learnt[1];
+		m_learnt[1]         = m_learnt[max_index];
+		m_learnt[max_index] = swap;
+
+		return m_levels[m_learnt[1] >> 1];
+	}
+
+	/*
+	 * remove literals implied by the other literals of the learnt clause
+	 */
+	protected void minimizeLearnt ()
+	{
+		m_to_clear_size = 0;
+
+		int abstract_levels = 0;
+
+		for (int i = 1; i < m_learnt_size; i++) {
+			m_to_clear[m_to_clear_size ++] = m_learnt[i];
+			abstract_levels |= abstractLevel (m_learnt[i] >> 1);
+		}
+
+		int j = 1;
+
+		for (int i = 1; i < m_learnt_size; i++) {
+			int literal = m_learnt[i];
+
+			if ((m_reasons[literal >> 1] == -1) || (! isRedundant (literal, abstract_levels))) {
+				m_learnt[j ++] = literal;
+			}
+		}
+
+		m_learnt_size = j;
+
+		for (int i = 0; i < m_to_clear_size; i++) {
+			m_seen[m_to_clear[i] >> 1] = 0;
+		}
+	}
+
+	protected boolean isRedundant (int literal, int abstractLevels)
+	{
+		int stack_size = 0;
+		int top        = m_to_clear_size;
+
+		m_analyze_stack[stack_size ++] = literal;
+
+		while (stack_size > 0) {
+			int current = m_analyze_stack[-- stack_size];
+			int reason  = m_reasons[current >> 1];
+			int size    = m_arena[reason];
+			int start   = reason + m_header_size;
+
+			for (int k = 1; k < size; k++) {
+				int other    = m_arena[start + k];
+				int variable = other >> 1;
+
+				if ((m_seen[variable] == 0) && (m_levels[variable] > 0)) {
+					if ((m_reasons[variable] != -1) && ((abstractLevel (variable) & abstractLevels) != 0)) {
+						m_seen[variable] = 1;
+						m_analyze_stack[stack_size ++]  = other;
+						m_to_clear[m_to_clear_size ++] = other;
+					} else {
+						for (int i = top; i < m_to_clear_size; i++) {
+							m_seen[m_to_clear[i] >> 1] = 0;
+						}
+
+						m_to_clear_size = top;
+
+						return false;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	protected final int abstractLevel (int variable)
+	{
+		return 1 << (m_levels[variable] & 31);
+	}
+
+	/*
+	 * amount of different decision levels in the learnt clause
+	 */
+	protected int computeLBD ()
+	{
+		m_level_stamp ++;
+
+		int result = 0;
+
+		for (int i = 0; i < m_learnt_size; i++) {
+			int level = m_levels[m_learnt[i] >> 1];
+
+			if (m_level_stamps[level] != m_level_stamp) {
+				m_level_stamps[level] = m_level_stamp;
+				result ++;
+			}
+		}
+
+		return result;
+	}
+
+	/*
+	 * ===============================================================================
+	 * activities and variable heap
+	 * ===============================================================================
+	 */
+
+	protected void bumpVariable (int variable)
+	{
+		m_activity[variable] += m_activity_increment;
+
+		if (m_activity[variable] > 1e100) {
+			for (int i_variable = 1; i_variable <= m_variables_count; i_variable ++) {
+				m_activity[i_variable] *= 1e-100;
+			}
+
+			m_activity_increment *= 1e-100;
+		}
+
+		if (m_heap_positions[variable] >= 0) heapUp (m_heap_positions[variable]);
+	}
+
+	protected void bumpClause (int clauseReference)
+	{
+		float activity = getClauseActivity (clauseReference) + m_clause_increment;
+
+		m_arena[clauseReference + 2] = Float.floatToRawIntBits (activity);
+
+		if (activity > 1e20f) {
+			for (int i = 0; i < m_learnts_count; i++) {
+				int learnt = m_learnts[i];
+
+				m_arena[learnt + 2] = Float.floatToRawIntBits (getClauseActivity (learnt) * 1e-20f);
+			}
+
+			m_clause_increment *= 1e-20f;
+		}
+	}
+
+	protected void decayActivities ()
+	{
+		m_activity_increment /= m_variable_decay;
+		m_clause_increment   /= m_clause_decay;
+	}
+
+	protected void heapInsert (int variable)
+	{
+		m_heap[m_heap_size] = variable;
+		m_heap_positions[variable] = m_heap_size;
+
+		heapUp (m_heap_size ++);
+	}
+
+	protected int heapRemoveMax ()
+	{
+		int result = m_heap[0];
+
+		m_heap[0] = m_heap[-- m_heap_size];
+		m_heap_positions[m_heap[0]] = 0;
+		m_heap_positions[result]    = -1;
+
+		if (m_heap_size > 1) heapDown (0);
+
+		return result;
+	}
+
+	protected void heapUp (int position)
+	{
+		int    variable = m_heap[position];
+		double activity = m_activity[variable];
+
+		while (position > 0) {
+			int parent = (position - 1) >> 1;
+
+			if (m_activity[m_heap[parent]] >= activity) break;
+
+			m_heap[position] = m_heap[parent];
+			m_heap_positions[m_heap[position]] = position;
+			position = parent;
+		}
+
+		m_heap[position] = variable;
+		m_heap_positions[variable] = position;
+	}
+
+	protected void heapDown (int position)
+	{
+		int    variable = m_heap[position];
+		double activity = m_activity[variable];
+
+		while (true) {
+			int child = 2 * position + 1;
+
+			if (child >= m_heap_size) break;
+
+			if ((child + 1 < m_heap_size) && (m_activity[m_heap[child + 1]] > m_activity[m_heap[child]])) child ++;
+
+			if (m_activity[m_heap[child]] <= activity) break;
+
+			m_heap[position] = m_heap[child];
+			m_heap_positions[m_heap[position]] = position;
+			position = child;
+		}
+
+		m_heap[position] = variable;
+		m_heap_positions[variable] = position;
+	}
+
+	/*
+	 * next decision literal (saved phase of the most active unassigned variable)
+	 * --> -1 if all variables are assigned
+	 */
+	protected int pickBranchLiteral ()
+	{
+		while (m_heap_size > 0) {
+			int variable = heapRemoveMax ();
+
+			if (m_values[2 * variable] == 0) return 2 * variable + m_polarity[variable];
+		}
+
+		return -1;
+	}
+
+	/*
+	 * ===============================================================================
+	 * search
+	 * ===============================================================================
+	 */
+
+	/*
+	 * solve the clauses under the assumptions, deadline is System.currentTimeMillis () based (0 = none)
+	 * --> the model is saved and the solver returns to level 0,
+	 *  so clauses can be added afterwards; the assumptions are cleared
+	 */
+	public SATResult solve (long deadline)
+	{
+		m_cancelled = false;
+		m_solution  = null;
+
+		Arrays.fill (m_failed, false);
+
+		if (m_max_learnts == 0) m_max_learnts = Math.max (m_arena_size / (3 * (m_header_size + 3)), 2000);
+
+		SATResult result = null;
+
+		if (! m_ok) {
+			result = SATResult.unsat;
+		} else if (propagate () != -1) {
+			m_ok   = false;
+			result = SATResult.unsat;
+		}
+
+		while (result == null) {
+			result = search (luby (m_restarts) * m_restart_base, deadline);
+			m_restarts ++;
+		}
+
+		if (result == SATResult.sat) m_solution = createModel ();
+
+		cancelUntil (0);
+
+		m_assumptions_count = 0;
+		m_result            = result;
+
+		return result;
+	}
+
+	/*
+	 * search until a result is found or conflictsLimit conflicts occured
+	 * --> returns null for a restart
+	 */
+	protected SATResult search (long conflictsLimit, long deadline)
+	{
+		long conflicts = 0;
+
+		while (true) {
+			int conflict = propagate ();
+
+			if (conflict != -1) {
+				m_conflicts ++;
+				conflicts ++;
+
+				if (m_decision_level == 0) {
+					m_ok = false;
+					return SATResult.unsat;
+				}
+
+				int backjump_level = analyze (conflict);
+
+				cancelUntil (backjump_level);
+
+				if (m_learnt_size == 1) {
+					enqueue (m_learnt[0], -1);
+				} else {
+					int clause_reference = allocateClause (m_learnt, m_learnt_size, true, computeLBD ());
+
+					attachClause (clause_reference);
+					bumpClause (clause_reference);
+					enqueue (m_learnt[0], clause_reference);
+				}
+
+				decayActivities ();
+
+				if (((m_conflicts & 255) == 0) && isInterrupted (deadline)) {
+					cancelUntil (0);
+					return (m_cancelled ? SATResult.unknown : SATResult.timeout);
+				}
+			} else {
+				if (conflicts >= conflictsLimit) {
+					cancelUntil (0);
+					return null;
+				}
+
+				if (m_learnts_count - m_trail_size >= m_max_learnts) reduceLearnts ();
+
+				int literal = -1;
+
+				// assumptions are the first decisions (one level each)
+				while (m_decision_level < m_assumptions_count) {
+					int assumption = m_assumptions[m_decision_level];
+
+					if (m_values[assumption] == 1) {
+						newDecisionLevel ();
+					} else if (m_values[assumption] == -1) {
+						analyzeFinal (assumption);
+						return SATResult.unsat;
+					} else {
+						literal = assumption;
+						break;
+					}
+				}
+
+				if (literal == -1) {
+					literal = pickBranchLiteral ();
+
+					if (literal == -1) return SATResult.sat;
+
+					m_decisions ++;
+
+					if (((m_decisions & 4095) == 0) && isInterrupted (deadline)) {
+						cancelUntil (0);
+						return (m_cancelled ? SATResult.unknown : SATResult.timeout);
+					}
+				}
+
+				newDecisionLevel ();
+				enqueue (literal, -1);
+			}
+		}
+	}
+
+	/*
+	 * the assumption literal is false --> mark all assumptions it depends on as failed
+	 */
+	protected void analyzeFinal (int literal)
+	{
+		m_failed[literal] = true;
+
+		if (m_decision_level == 0) return;
+
+		m_seen[literal >> 1] = 1;
+
+		for (int i = m_trail_size - 1; i >= m_trail_limits[0]; i--) {
+			int variable = m_trail[i] >> 1;
+
+			if (m_seen[variable] == 0) continue;
+
+			int reason = m_reasons[variable];
+
+			if (reason == -1) {
+				// below the assumption levels every decision is an assumption
+				m_failed[m_trail[i]] = true;
+			} else {
+				int size  = m_arena[reason];
+				int start = reason + m_header_size;
+
+				for (int k = 1; k < size; k++) {
+					int other = m_arena[start + k] >> 1;
+
+					if (m_levels[other] > 0) m_seen[other] = 1;
+				}
+			}
+
+			m_seen[variable] = 0;
+		}
+
+		m_seen[literal >> 1] = 0;
+	}
+
+	protected boolean isInterrupted (long deadline)
+	{
+		return (m_cancelled || ((deadline > 0) && (System.currentTimeMillis () >= deadline)));
+	}
+
+	/*
+	 * luby sequence 1, 1, 2, 1, 1, 2, 4, 1, ...
+	 */
+	protected static long luby (long index)
+	{
+		long size = 1;
+		int  sequence = 0;
+
+		while (size < index + 1) {
+			sequence ++;
+			size = 2 * size + 1;
+		}
+
+		while (size - 1 != index) {
+			size = (size - 1) >> 1;
+			sequence --;
+			index = index % size;
+		}
+
+		return 1L << sequence;
+	}
+
+	/*
+	 * ===============================================================================
+	 * reduction of the learnt clauses
+	 * ===============================================================================
+	 */
+
+	/*
+	 * delete half of the learnt clauses (high LBD and low activity first),
+	 * clauses with LBD <= 2 and reasons are kept
+	 */
+	protected void reduceLearnts ()
+	{
+		m_reductions ++;
+
+		Integer[] learnts = new Integer [m_learnts_count];
+
+		for (int i = 0; i < m_learnts_count; i++) {
+			learnts[i] = m_learnts[i];
+		}
+
+		Arrays.sort (learnts, new Comparator<Integer> () {
+			public int compare (Integer first, Integer second)
+			{
+				int lbd_first  = getLBD (first);
+				int lbd_second = getLBD (second);
+
+				if (lbd_first != lbd_second) return (lbd_first > lbd_second ? -1 : 1);
+
+				return Float.compare (getClauseActivity (first), getClauseActivity (second));
+			}
+		});
+
+		int to_delete = m_learnts_count / 2;
+
+		for (int i = 0; (i < learnts.length) && (to_delete > 0); i++) {
+			int clause_reference = learnts[i];
+
+			if ((getLBD (clause_reference) > 2) && (! isLocked (clause_reference))) {
+				m_arena[clause_reference + 1] |= m_flag_deleted;
+				m_arena_wasted += m_header_size + m_arena[clause_reference];
+				to_delete --;
+			}
+		}
+
+		m_max_learnts += m_max_learnts / 10;
+
+		collectGarbage ();
+	}
+
+	/*
+	 * remove deleted clauses from the arena and rebuild the watches
+	 * --> reasons on the trail are moved along with their clauses
+	 */
+	protected void collectGarbage ()
+	{
+		// reasons sorted by position in the arena
+		long[] reasons       = new long [m_trail_size];
+		int    reasons_count = 0;
+
+		for (int i = 0; i < m_trail_size; i++) {
+			int variable = m_trail[i] >> 1;
+
+			if (m_reasons[variable] >= 0) reasons[reasons_count ++] = ((long) m_reasons[variable] << 32) | variable;
+		}
+
+		Arrays.sort (reasons, 0, reasons_count);
+
+		int i_reason      = 0;
+		int new_size      = 0;
+		int clause_reference = 0;
+
+		m_learnts_count = 0;
+
+		while (clause_reference < m_arena_size) {
+			int size = m_arena[clause_reference] + m_header_size;
+
+			if ((m_arena[clause_reference + 1] & m_flag_deleted) == 0) {
+				while ((i_reason < reasons_count) && ((int) (reasons[i_reason] >>> 32) == clause_reference)) {
+					m_reasons[(int) reasons[i_reason]] = new_size;
+					i_reason ++;
+				}
+
+				System.arraycopy (m_arena, clause_reference, m_arena, new_size, size);
+
+				if (isLearnt (new_size)) m_learnts[m_learnts_count ++] = new_size;
+
+				new_size += size;
+			}
+
+			clause_reference += size;
+		}
+
+		m_arena_size   = new_size;
+		m_arena_wasted = 0;
+
+		Arrays.fill (m_watches_size, 0);
+
+		for (clause_reference = 0; clause_reference < m_arena_size; clause_reference += m_arena[clause_reference] + m_header_size) {
+			attachClause (clause_reference);
+		}
+	}
+
+	/*
+	 * ===============================================================================
+	 * model
+	 * ===============================================================================
+	 */
+
+	protected Model createModel ()
+	{
+		Model result = new Model (m_variables_count);
+
+		for (int i_variable = 1; i_variable <= m_variables_count; i_variable ++) {
+			if (m_values[2 * i_variable] == 1) result.setTrue (i_variable);
+		}
+
+		return result;
+	}
+}
@@ -1,32 +1,57 @@
 package edgematching.cnf;
 
+import java.io.*;
+import java.nio.channels.*;
 import java.util.*;
 import java.lang.Math;
 
 /*
  * Class for a CNF-formula
- * contains clauses as Clause-class
+ * contains all clauses in one flat int-array (literal arena)
+ * --> no Clause- or Integer-objects are created per clause
  */
 public class CNFFormula
+	implements ClauseSink
 {
 	/*
-	 * m_clauses: clauses
-	 * m_variables: set of variables in all clauses
+	 * m_literals: literals of all clauses, stored one after another
+	 * m_literals_count: amount of used entries of m_literals
+	 * m_clause_starts: index of the first literal of each clause in m_literals,
+	 *  m_clause_starts[m_clauses_count] is the end of the last clause
+	 * m_clauses_count: amount of clauses
 	 * m_comment: comment for output as DIMACS-file
 	 */
-	//protected HashSet<Clause> m_clauses;
-	protected ArrayList<Clause> m_clauses;
-	protected TreeSet<Integer> m_variables;
+	protected int[] m_literals;
+	protected int   m_literals_count;
+	protected int[] m_clause_starts;
+	protected int   m_clauses_count;
 
 	/*
-	 * m_solution: literals mapped to true by solver
+	 * variable space of the formula
+	 * m_max_variable: greatest variable occuring in a clause
+	 * m_declared_variables: amount of variables declared by the encoding
+	 * m_variable_occupancy: variables occuring in clauses,
+	 *  only tracked if enabled (null otherwise)
+	 */
+	protected int    m_max_variable;
+	protected int    m_declared_variables;
+	protected BitSet m_variable_occupancy;
+
+	/*
+	 * m_solution: variables mapped to true by solver
 	 * m_solved: true for satisfying solution
 	 */
-	protected SortedSet<Integer> m_solution;
+	protected Model m_solution;
 	protected boolean m_solved;
 
 	protected String m_comment;
 
+	/*
+	 * initial sizes of the arrays, they grow by doubling
+	 */
+	protected static final int m_initial_literals_capacity = 1024;
+	protected static final int m_initial_clauses_capacity  = 256;
+
 	/*
 	 * simple costructor
 	 */
@@ -40,54 +65,209 @@ public class CNFFormula
 	 */
 	public CNFFormula (String comment)
 	{
-		//m_clauses   = new HashSet<Clause> ();
-		m_clauses   = new ArrayList<Clause> ();
-		m_variables = new TreeSet<Integer> ();
+		m_literals        = new int [m_initial_literals_capacity];
+		m_literals_count  = 0;
+		m_clause_starts   = new int [m_initial_clauses_capacity + 1];
+		m_clauses_count   = 0;
+
+		m_max_variable       = 0;
+		m_declared_variables = 0;
+		m_variable_occupancy = null;
+
 		m_comment   = comment;
 		m_solved    = false;
 	}
 
 	/*
 	 * add a Clause directly as array of literals
-	 * --> more efficient, because m_variables is updated directly
+	 * --> more efficient, because no Clause-object is needed
 	 */
 	public boolean addClause (int[] literals)
 	{
 		if (literals == null) return false;
 
-		m_clauses.add (new Clause (literals));
+		addClause (literals, literals.length);
+
+		return true;
+	}
+
+	/*
+	 * add a Clause as a Clause-object
+	 * --> its literals are copied into the arena
+	 */
+	public boolean addClause (Clause clause)
+	{
+		if (clause == null) return false;
+
+		addClause (clause.m_literals, clause.m_size);
 
-		for (int i = 0; i < literals.length; i++) {
+		return true;
+	}
+
+	/*
+	 * copy the first length literals of the given array to the end of the arena
+	 * --> 0-literals are skipped, they would terminate the clause in DIMACS
+	 */
+	public void addClause (int[] literals, int length)
+	{
+		ensureLiteralsCapacity (m_literals_count + length);
+		ensureClausesCapacity (m_clauses_count + 1);
+
+		for (int i = 0; i < length; i++) {
 			int literal = literals[i];
 
 			if (literal != 0) {
-				m_variables.add (Math.abs (literal));
+				appendLiteral (literal);
 			}
 		}
 
-		return true;
+		finishClause ();
 	}
 
 	/*
-	 * add a Clause as a Clause-object
-	 * --> less efficient than above, because getVariables has to be calculated separately
+	 * clauses of fixed size, written directly into the arena
 	 */
-	public boolean addClause (Clause clause)
+	public void addUnit (int literal)
 	{
-		if (clause == null) return false;
+		ensureLiteralsCapacity (m_literals_count + 1);
+		ensureClausesCapacity (m_clauses_count + 1);
 
-		m_clauses.add (clause);
-		m_variables.addAll (clause.getVariables ());
+		appendLiteral (literal);
+		finishClause ();
+	}
 
-		return true;
+	public void addBinary (int literal1, int literal2)
+	{
+		ensureLiteralsCapacity (m_literals_count + 2);
+		ensureClausesCapacity (m_clauses_count + 1);
+
+		appendLiteral (literal1);
+		appendLiteral (literal2);
+		finishClause ();
+	}
+
+	public void addTernary (int literal1, int literal2, int literal3)
+	{
+		ensureLiteralsCapacity (m_literals_count + 3);
+		ensureClausesCapacity (m_clauses_count + 1);
+
+		appendLiteral (literal1);
+		appendLiteral (literal2);
+		appendLiteral (literal3);
+		finishClause ();
 	}
 
 	/*
-	 * return the number of variables
+	 * append one literal to the arena and update the variable space
+	 * --> capacity has to be ensured by the caller
+	 */
+	protected final void appendLiteral (int literal)
+	{
+		m_literals[m_literals_count ++] = literal;
+
+		int variable = (literal > 0 ? literal : -literal);
+		if (variable > m_max_variable) m_max_variable = variable;
+		if (m_variable_occupancy != null) m_variable_occupancy.set (variable);
+	}
+
+	/*
+	 * close the clause consisting of the literals appended since the last clause
+	 */
+	protected final void finishClause ()
+	{
+		m_clauses_count ++;
+		m_clause_starts[m_clauses_count] = m_literals_count;
+	}
+
+	protected void ensureLiteralsCapacity (int capacity)
+	{
+		if (capacity <= m_literals.length) return;
+
+		int new_capacity = Math.max (capacity, 2 * m_literals.length);
+		m_literals = Arrays.copyOf (m_literals, new_capacity);
+	}
+
+	protected void ensureClausesCapacity (int capacity)
+	{
+		if (capacity + 1 <= m_clause_starts.length) return;
+
+		int new_capacity = Math.max (capacity + 1, 2 * m_clause_starts.length);
+		m_clause_starts = Arrays.copyOf (m_clause_starts, new_capacity);
+	}
+
+	/*
+	 * return an iterator over all clauses
+	 * --> works directly on the arena, the formula must not be changed while iterating
+	 */
+	public ClauseIterator clauseIterator ()
+	{
+		return new ClauseIterator (m_literals, m_clause_starts, m_clauses_count);
+	}
+
+	/*
+	 * return the number of clauses
+	 */
+	public int getAmountOfClauses ()
+	{
+		return m_clauses_count;
+	}
+
+	/*
+	 * return the number of literals in all clauses
+	 */
+	public int getAmountOfLiterals ()
+	{
+		return m_literals_count;
+	}
+
+	/*
+	 * declare the variables {1, ..., amount} up front
+	 * --> for encodings knowing their variable range,
+	 *  variables not occuring in any clause are counted as well
+	 */
+	public void declareVariables (int amount)
+	{
+		if (amount > m_declared_variables) m_declared_variables = amount;
+	}
+
+	/*
+	 * enable or disable tracking of the variables really occuring in clauses
+	 * --> costs one bit per variable, clauses already added are scanned
+	 */
+	public void setTrackVariableOccupancy (boolean track)
+	{
+		if (! track) {
+			m_variable_occupancy = null;
+			return;
+		}
+
+		if (m_variable_occupancy != null) return;
+
+		m_variable_occupancy = new BitSet (m_max_variable + 1);
+
+		for (int i = 0; i < m_literals_count; i++) {
+			m_variable_occupancy.set (Math.abs (m_literals[i]));
+		}
+	}
+
+	/*
+	 * return the number of variables --> greatest variable of the formula
+	 * (as needed for the DIMACS header)
 	 */
 	public int getAmountOfVariables ()
 	{
-		return m_variables.size ();
+		return Math.max (m_max_variable, m_declared_variables);
+	}
+
+	/*
+	 * return the number of variables occuring in at least one clause,
+	 * -1 if occupancy is not tracked
+	 */
+	public int getAmountOfUsedVariables ()
+	{
+		if (m_variable_occupancy == null) return -1;
+
+		return m_variable_occupancy.cardinality ();
 	}
 
 	/*
@@ -101,7 +281,7 @@ public class CNFFormula
 	/*
 	 * return the model of the CNFFormula
 	 */
-	public Set<Integer> getSolution ()
+	public Model getSolution ()
 	{
 		if (! m_solved) return null;
 
@@ -111,86 +291,73 @@ public class CNFFormula
 	/*
 	 * set the solution of the formula calculated by a solver...
 	 */
-	public void setSolution (Collection<Integer> solution)
+	public void setSolution (Model solution)
 	{
 		if (solution == null) return;
 
-		m_solution = new TreeSet<Integer> ();
-
-		for (Integer i_literal : solution) {
-			m_solution.add (i_literal);
-		}
+		m_solution = solution;
 
 		m_solved = true;
 	}
 
 	/*
-	 * hashCode is same, if the clauses-list has the same hash
+	 * hashCode is calculated out of the hashes of the clauses
+	 * --> hash of a clause is the xor of its literals (see Clause)
 	 */
 	public int hashCode ()
 	{
-		return m_clauses.hashCode ();
-	}
+		int result = 1;
 
-	/*
-	 * converts our m_comment String to DIMACS formaet
-	 * --> begin each line with "c "
-	 */
-	private String commentToDIMACS ()
-	{
-		String result = new String ();
+		for (ClauseIterator i_clause = clauseIterator (); i_clause.next (); ) {
+			int clause_hash = 0;
 
-		Scanner m_line_scanner = new Scanner (m_comment);
+			for (int i = i_clause.getStart (); i < i_clause.getEnd (); i++) {
+				clause_hash ^= m_literals[i];
+			}
 
-		while (m_line_scanner.hasNextLine ()) {
-			result += "c " + m_line_scanner.nextLine () + "\n";
+			result = 31 * result + clause_hash;
 		}
 
 		return result;
 	}
 
 	/*
-	 * converts this formula into DIMACS-format-String
-	 * --> begin with comment and header and add each Clause in DIMACS-format
+	 * writes this formula in DIMACS-format to the given stream
+	 * --> literals are formatted directly into a byte-buffer, no String is created
 	 */
-	public String toDIMACS ()
+	public void writeDIMACS (OutputStream stream) throws IOException
 	{
-		/*
-		String result = new String ();
+		DIMACSWriter writer = new DIMACSWriter (stream);
 
-		if (m_comment != null) {
-			result += commentToDIMACS ();
-		} else {
-			result += "c cnf-formula to be satisfied\n";
-		}
-
-		result += "p cnf " + m_variables.size () + " " + m_clauses.size () + "\n";
+		writer.writeFormula (this);
+		writer.flush ();
+	}
 
-		for (Clause i_clause : m_clauses) {
-			result += i_clause.toDIMACS ();
-		}
+	/*
+	 * writes this formula in DIMACS-format to the given channel
+	 */
+	public void writeDIMACS (WritableByteChannel channel) throws IOException
+	{
+		DIMACSWriter writer = new DIMACSWriter (channel);
 
-		return result;
-		*/
-
-		StringBuffer buffer = new StringBuffer ();
-	
-		if (m_comment != null) {
-			buffer.append (commentToDIMACS ());
-		} else {
-			buffer.append ("c cnf-formula to be satisfied\n");
-		}
+		writer.writeFormula (this);
+		writer.flush ();
+	}
 
-		buffer.append ("p cnf ");
-		buffer.append (m_variables.size ());
-		buffer.append (" ");
-		buffer.append (m_clauses.size ());
-		buffer.append ("\n");
+	/*
+	 * converts this formula into DIMACS-format-String
+	 * --> only useful for small formulas, use writeDIMACS otherwise
+	 */
+	public String toDIMACS ()
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream ();
 
-		for (Clause i_clause : m_clauses) {
-			buffer.append (i_clause.toDIMACS ());
+		try {
+			writeDIMACS (stream);
+		} catch (IOException exception) {
+			return null;
 		}
 
-		return buffer.toString ();
+		return stream.toString ();
 	}
 }
@@ -0,0 +1,635 @@
+package edgematching.cnf;
+
+import java.util.*;
+
+/*
+ * preprocessing of a CNFFormula before it is handed to a solver
+ *
+ * passes (in this order, the size of the formula is logged after each pass):
+ *  - units: sort the clauses, remove duplicate literals and tautologies,
+ *     propagate unit clauses (satisfied clauses and false literals are removed)
+ *  - duplicates: remove clauses occuring more than once
+ *  - subsumption: remove clauses containing all literals of a shorter clause
+ *  - pure literals: set literals occuring in only one polarity to true
+ *
+ * the variables keep their numbers, so a model of the simplified formula
+ * is a model of the original formula after extendModel
+ * (the fixed literals are replayed from the reconstruction stack)
+ */
+public class CNFSimplifier
+{
+	/*
+	 * clauses: literals of clause c are m_literals[m_clause_starts[c], m_clause_starts[c] + m_clause_sizes[c]),
+	 *  the rest up to m_clause_starts[c + 1] is 0
+	 * --> during unit propagation m_clause_sizes counts the unassigned literals instead
+	 */
+	protected int[]     m_literals;
+	protected int[]     m_clause_starts;
+	protected int[]     m_clause_sizes;
+	protected boolean[] m_removed;
+	protected int       m_clauses_count;
+	protected int       m_variables_count;
+	protected String    m_comment;
+
+	/*
+	 * occurrence lists: clauses of literal l are m_occurrences[m_occurrence_starts[index], m_occurrence_starts[index + 1])
+	 * with index = 2 * variable (+ 1 if negative)
+	 * --> built once, literals are only removed from clauses, so the lists stay a superset
+	 */
+	protected int[] m_occurrence_starts;
+	protected int[] m_occurrences;
+
+	/*
+	 * assignment: 1 true, -1 false, 0 unassigned
+	 */
+	protected byte[] m_values;
+
+	/*
+	 * fixed literals in the order they were set
+	 */
+	protected int[] m_reconstruction_stack;
+	protected int   m_reconstruction_size;
+
+	protected boolean m_unsatisfiable;
+
+	/*
+	 * occurrence lists longer than this are not searched for subsumed clauses
+	 */
+	protected int m_subsumption_limit;
+
+	public CNFSimplifier ()
+	{
+		m_subsumption_limit = 1000;
+	}
+
+	public void setSubsumptionLimit (int limit)
+	{
+		m_subsumption_limit = limit;
+	}
+
+	/*
+	 * run all passes on formula (which is not changed) and return the simplified formula
+	 */
+	public CNFFormula simplify (CNFFormula formula)
+	{
+		loadFormula (formula);
+
+		logSize ("input");
+
+		propagateUnits ();
+		logSize ("units");
+
+		if (! m_unsatisfiable) {
+			removeDuplicates ();
+			logSize ("duplicates");
+
+			removeSubsumed ();
+			logSize ("subsumption");
+
+			eliminatePureLiterals ();
+			logSize ("pure literals");
+		}
+
+		return createFormula ();
+	}
+
+	public boolean isUnsatisfiable ()
+	{
+		return m_unsatisfiable;
+	}
+
+	/*
+	 * amount of variables fixed by units and pure literals
+	 */
+	public int getAmountOfFixedVariables ()
+	{
+		return m_reconstruction_size;
+	}
+
+	/*
+	 * model of the simplified formula --> model of the original formula
+	 */
+	public Model extendModel (Model model)
+	{
+		Model result = new Model (model);
+
+		for (int i = 0; i < m_reconstruction_size; i++) {
+			result.setLiteral (m_reconstruction_stack[i]);
+		}
+
+		return result;
+	}
+
+	/*
+	 * ===============================================================================
+	 * setup
+	 * ===============================================================================
+	 */
+
+	protected void loadFormula (CNFFormula formula)
+	{
+		m_variables_count = formula.getAmountOfVariables ();
+		m_clauses_count   = formula.getAmountOfClauses ();
+		m_comment         = formula.m_comment;
+
+		m_literals      = Arrays.copyOf (formula.m_literals, formula.getAmountOfLiterals ());
+		m_clause_starts = Arrays.copyOf (formula.m_clause_starts, m_clauses_count + 1);
+		m_clause_sizes  = new int [m_clauses_count];
+		m_removed       = new boolean [m_clauses_count];
+
+		m_values               = new byte [m_variables_count + 1];
+		m_reconstruction_stack = new int [16];
+		m_reconstruction_size  = 0;
+		m_unsatisfiable        = false;
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			m_clause_sizes[i_clause] = m_clause_starts[i_clause + 1] - m_clause_starts[i_clause];
+		}
+
+		normalizeClauses ();
+		buildOccurrences ();
+	}
+
+	/*
+	 * sort the literals of each clause, remove duplicate literals and tautologies
+	 */
+	protected void normalizeClauses ()
+	{
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			int start = m_clause_starts[i_clause];
+			int end   = start + m_clause_sizes[i_clause];
+
+			Arrays.sort (m_literals, start, end);
+
+			int size = 0;
+
+			for (int i = start; i < end; i++) {
+				int literal = m_literals[i];
+
+				if ((size > 0) && (m_literals[start + size - 1] == literal)) continue;
+
+				m_literals[start + size] = literal;
+				size ++;
+			}
+
+			m_clause_sizes[i_clause] = size;
+
+			// the rest of the clause is marked as empty
+			Arrays.fill (m_literals, start + size, end, 0);
+
+			// sorted by value --> x and -x are not adjacent, check with a second scan
+			for (int i = start; (i < start + size) && (m_literals[i] < 0); i++) {
+				if (Arrays.binarySearch (m_literals, start, start + size, - m_literals[i]) >= 0) {
+					m_removed[i_clause] = true;
+					break;
+				}
+			}
+		}
+	}
+
+	protected void buildOccurrences ()
+	{
+		m_occurrence_starts = new int [2 * (m_variables_count + 1) + 1];
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (m_removed[i_clause]) continue;
+
+			int start = m_clause_starts[i_clause];
+
+			for (int i = start; i < start + m_clause_sizes[i_clause]; i++) {
+				m_occurrence_starts[literalIndex (m_literals[i]) + 1] ++;
+			}
+		}
+
+		for (int i = 1; i < m_occurrence_starts.length; i++) {
+			m_occurrence_starts[i] += m_occurrence_starts[i - 1];
+		}
+
+		m_occurrences = new int [m_occurrence_starts[m_occurrence_starts.length - 1]];
+
+		int[] positions = Arrays.copyOf (m_occurrence_starts, m_occurrence_starts.length - 1);
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (m_removed[i_clause]) continue;
+
+			int start = m_clause_starts[i_clause];
+
+			for (int i = start; i < start + m_clause_sizes[i_clause]; i++) {
+				m_occurrences[positions[literalIndex (m_literals[i])] ++] = i_clause;
+			}
+		}
+	}
+
+	protected static int literalIndex (int literal)
+	{
+		return (literal > 0 ? 2 * literal : 2 * (-literal) + 1);
+	}
+
+	/*
+	 * ===============================================================================
+	 * units
+	 * ===============================================================================
+	 */
+
+	protected void propagateUnits ()
+	{
+		int trail_start = m_reconstruction_size;
+
+		for (int i_clause = 0; (i_clause < m_clauses_count) && (! m_unsatisfiable); i_clause ++) {
+			if (m_removed[i_clause]) continue;
+
+			if (m_clause_sizes[i_clause] == 0) {
+				m_unsatisfiable = true;
+			} else if (m_clause_sizes[i_clause] == 1) {
+				int literal = m_literals[m_clause_starts[i_clause]];
+
+				if (valueOf (literal) == 0) {
+					assign (literal);
+				} else if (valueOf (literal) < 0) {
+					m_unsatisfiable = true;
+				}
+			}
+		}
+
+		// the reconstruction stack is the trail of the propagation
+		for (int i_trail = trail_start; (i_trail < m_reconstruction_size) && (! m_unsatisfiable); i_trail ++) {
+			int literal = m_reconstruction_stack[i_trail];
+
+			// satisfied clauses
+			int index = literalIndex (literal);
+
+			for (int i = m_occurrence_starts[index]; i < m_occurrence_starts[index + 1]; i++) {
+				m_removed[m_occurrences[i]] = true;
+			}
+
+			// shortened clauses
+			index = literalIndex (- literal);
+
+			for (int i = m_occurrence_starts[index]; (i < m_occurrence_starts[index + 1]) && (! m_unsatisfiable); i++) {
+				int clause = m_occurrences[i];
+
+				if (m_removed[clause]) continue;
+
+				m_clause_sizes[clause] --;
+
+				if (m_clause_sizes[clause] <= 1) propagateClause (clause);
+			}
+		}
+
+		if (m_unsatisfiable) return;
+
+		// remove the false literals from the remaining clauses
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (m_removed[i_clause]) continue;
+
+			int start = m_clause_starts[i_clause];
+			int end   = m_clause_starts[i_clause + 1];
+			int size  = 0;
+
+			for (int i = start; i < end; i++) {
+				int literal = m_literals[i];
+
+				if ((literal == 0) || (valueOf (literal) < 0)) continue;
+
+				m_literals[start + size] = literal;
+				size ++;
+			}
+
+			m_clause_sizes[i_clause] = size;
+		}
+	}
+
+	/*
+	 * clause has at most one unassigned literal left
+	 * --> satisfied, unit or conflicting
+	 */
+	protected void propagateClause (int clause)
+	{
+		int start      = m_clause_starts[clause];
+		int end        = m_clause_starts[clause + 1];
+		int unassigned = 0;
+
+		for (int i = start; i < end; i++) {
+			if (m_literals[i] == 0) continue;
+
+			int value = valueOf (m_literals[i]);
+
+			if (value > 0) {
+				m_removed[clause] = true;
+				return;
+			}
+
+			if (value == 0) unassigned = m_literals[i];
+		}
+
+		if (unassigned == 0) {
+			m_unsatisfiable = true;
+		} else {
+			assign (unassigned);
+		}
+	}
+
+	protected final int valueOf (int literal)
+	{
+		return (literal > 0 ? m_values[literal] : - m_values[- literal]);
+	}
+
+	/*
+	 * set literal to true and push it on the reconstruction stack
+	 */
+	protected void assign (int literal)
+	{
+		m_values[Math.abs (literal)] = (byte) (literal > 0 ? 1 : -1);
+
+		if (m_reconstruction_size == m_reconstruction_stack.length) {
+			m_reconstruction_stack = Arrays.copyOf (m_reconstruction_stack, 2 * m_reconstruction_size);
+		}
+
+		m_reconstruction_stack[m_reconstruction_size ++] = literal;
+	}
+
+	/*
+	 * ===============================================================================
+	 * duplicates
+	 * ===============================================================================
+	 */
+
+	/*
+	 * hash table of the clauses (open addressing, clause + 1 as entry)
+	 * --> the first occurrence of each clause is kept
+	 */
+	protected void removeDuplicates ()
+	{
+		int capacity = Integer.highestOneBit (Math.max (2 * m_clauses_count, 2)) << 1;
+		int mask     = capacity - 1;
+
+		int[] table  = new int [capacity];
+		int[] hashes = new int [m_clauses_count];
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (m_removed[i_clause]) continue;
+
+			int start = m_clause_starts[i_clause];
+			int size  = m_clause_sizes[i_clause];
+			int hash  = size;
+
+			// murmur3 mixing, the binary clauses of the encodings differ only slightly,
+			// 31 * hash + literal clusters them in the table
+			for (int i = start; i < start + size; i++) {
+				hash = Integer.rotateLeft (hash ^ (m_literals[i] * 0xcc9e2d51), 15) * 5 + 0xe6546b64;
+			}
+
+			hash ^= (hash >>> 16);
+			hash *= 0x85ebca6b;
+			hash ^= (hash >>> 13);
+			hash *= 0xc2b2ae35;
+			hash ^= (hash >>> 16);
+			hashes[i_clause] = hash;
+
+			for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+				int other = table[slot] - 1;
+
+				if (other < 0) {
+					table[slot] = i_clause + 1;
+					break;
+				}
+
+				if ((hashes[other] == hash) && equalClauses (other, i_clause)) {
+					m_removed[i_clause] = true;
+					break;
+				}
+			}
+		}
+	}
+
+	protected boolean equalClauses (int first, int second)
+	{
+		int size = m_clause_sizes[first];
+
+		if (size != m_clause_sizes[second]) return false;
+
+		int first_start  = m_clause_starts[first];
+		int second_start = m_clause_starts[second];
+
+		for (int i = 0; i < size; i++) {
+			if (m_literals[first_start + i] != m_literals[second_start + i]) return false;
+		}
+
+		return true;
+	}
+
+	/*
+	 * ===============================================================================
+	 * subsumption
+	 * ===============================================================================
+	 */
+
+	/*
+	 * backward subsumption: the clauses are tried from short to long,
+	 * each one against the clauses of its literal with the fewest occurrences
+	 */
+	protected void removeSubsumed ()
+	{
+		int max_size = 0;
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (! m_removed[i_clause]) max_size = Math.max (max_size, m_clause_sizes[i_clause]);
+		}
+
+		// counting sort of the clauses by size
+		int[] size_starts = new int [max_size + 2];
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (! m_removed[i_clause]) size_starts[m_clause_sizes[i_clause] + 1] ++;
+		}
+
+		for (int i = 1; i < size_starts.length; i++) {
+			size_starts[i] += size_starts[i - 1];
+		}
+
+		int[] sorted_clauses = new int [size_starts[max_size + 1]];
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (! m_removed[i_clause]) sorted_clauses[size_starts[m_clause_sizes[i_clause]] ++] = i_clause;
+		}
+
+		for (int clause : sorted_clauses) {
+			if (m_removed[clause]) continue;
+
+			int start = m_clause_starts[clause];
+			int size  = m_clause_sizes[clause];
+
+			// literal with the shortest occurrence list
+			int best_index  = -1;
+			int best_length = Integer.MAX_VALUE;
+
+			for (int i = start; i < start + size; i++) {
+				int index  = literalIndex (m_literals[i]);
+				int length = m_occurrence_starts[index + 1] - m_occurrence_starts[index];
+
+				if (length < best_length) {
+					best_index  = index;
+					best_length = length;
+				}
+			}
+
+			if ((best_index < 0) || (best_length > m_subsumption_limit)) continue;
+
+			for (int i = m_occurrence_starts[best_index]; i < m_occurrence_starts[best_index + 1]; i++) {
+				int other = m_occurrences[i];
+
+				if ((other == clause) || m_removed[other]) continue;
+				if (m_clause_sizes[other] < size) continue;
+
+				if (isSubset (clause, other)) m_removed[other] = true;
+			}
+		}
+	}
+
+	/*
+	 * all literals of first are in second (both sorted)
+	 */
+	protected boolean isSubset (int first, int second)
+	{
+		int i     = m_clause_starts[first];
+		int i_end = i + m_clause_sizes[first];
+		int j     = m_clause_starts[second];
+		int j_end = j + m_clause_sizes[second];
+
+		while (i < i_end) {
+			if (i_end - i > j_end - j) return false;
+
+			if (m_literals[i] == m_literals[j]) {
+				i ++;
+				j ++;
+			} else if (m_literals[i] > m_literals[j]) {
+				j ++;
+			} else {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/*
+	 * ===============================================================================
+	 * pure literals
+	 * ===============================================================================
+	 */
+
+	protected void eliminatePureLiterals ()
+	{
+		int[] counts = new int [2 * (m_variables_count + 1)];
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (m_removed[i_clause]) continue;
+
+			int start = m_clause_starts[i_clause];
+
+			for (int i = start; i < start + m_clause_sizes[i_clause]; i++) {
+				counts[literalIndex (m_literals[i])] ++;
+			}
+		}
+
+		// each variable once at the start, afterwards at most once per literal whose count drops to 0
+		int[] work_list = new int [3 * (m_variables_count + 1)];
+		int   work_size = 0;
+
+		for (int i_variable = 1; i_variable <= m_variables_count; i_variable ++) {
+			work_list[work_size ++] = i_variable;
+		}
+
+		while (work_size > 0) {
+			int variable = work_list[-- work_size];
+
+			if (m_values[variable] != 0) continue;
+
+			int positive = counts[2 * variable];
+			int negative = counts[2 * variable + 1];
+
+			if ((positive > 0) == (negative > 0)) continue;
+
+			int literal = (positive > 0 ? variable : - variable);
+			int index   = literalIndex (literal);
+
+			assign (literal);
+
+			for (int i = m_occurrence_starts[index]; i < m_occurrence_starts[index + 1]; i++) {
+				int clause = m_occurrences[i];
+
+				if (m_removed[clause]) continue;
+
+				m_removed[clause] = true;
+
+				int start = m_clause_starts[clause];
+
+				for (int k = start; k < start + m_clause_sizes[clause]; k++) {
+					int other_index = literalIndex (m_literals[k]);
+
+					counts[other_index] --;
+
+					// the other polarity may be pure now
+					if (counts[other_index] == 0) {
+						work_list[work_size ++] = (other_index >> 1);
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * ===============================================================================
+	 * output
+	 * ===============================================================================
+	 */
+
+	protected CNFFormula createFormula ()
+	{
+		CNFFormula result = new CNFFormula (m_comment);
+
+		result.declareVariables (m_variables_count);
+
+		if (m_unsatisfiable) {
+			result.addClause (new int [0], 0);
+			return result;
+		}
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (m_removed[i_clause]) continue;
+
+			int start = m_clause_starts[i_clause];
+			int size  = m_clause_sizes[i_clause];
+
+			switch (size) {
+				case 1:
+					result.addUnit (m_literals[start]);
+					break;
+				case 2:
+					result.addBinary (m_literals[start], m_literals[start + 1]);
+					break;
+				default:
+					result.addClause (Arrays.copyOfRange (m_literals, start, start + size), size);
+					break;
+			}
+		}
+
+		return result;
+	}
+
+	protected void logSize (String pass)
+	{
+		int  clauses  = 0;
+		long literals = 0;
+
+		for (int i_clause = 0; i_clause < m_clauses_count; i_clause ++) {
+			if (m_removed[i_clause]) continue;
+
+			clauses ++;
+			literals += m_clause_sizes[i_clause];
+		}
+
+		System.err.println ("simplify: " + pass + ": " + clauses + " clauses, " + literals + " literals, " +
+				m_reconstruction_size + " fixed variables" + (m_unsatisfiable ? ", unsatisfiable" : ""));
+	}
+}
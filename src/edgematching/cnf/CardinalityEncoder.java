@@ -0,0 +1,397 @@
+package edgematching.cnf;
+
+/*
+ * encodes "at most one" and "exactly one" of n literals with one of the strategies of CardinalityEncoding
+ * --> the auxiliary variables are allocated by the caller (getAmountOfAuxiliaryVariables)
+ *  and passed as the first of a consecutive range
+ *
+ * exactly one is at most one plus the clause of all literals,
+ * except for the ladder which encodes both at once;
+ * exactly k > 1 always uses a sequential counter (whatever the strategy)
+ *
+ * an encode call is not thread-safe (m_next_variable), use one encoder per thread
+ */
+public class CardinalityEncoder
+{
+	/*
+	 * commander and product encode at most this many literals pairwise
+	 */
+	protected static final int m_pairwise_limit = 6;
+
+	protected CardinalityEncoding m_encoding;
+
+	/*
+	 * next unused auxiliary variable of the current encode call
+	 */
+	protected int m_next_variable;
+
+	public CardinalityEncoder (CardinalityEncoding encoding)
+	{
+		m_encoding      = encoding;
+		m_next_variable = 0;
+	}
+
+	public CardinalityEncoding getEncoding ()
+	{
+		return m_encoding;
+	}
+
+	/*
+	 * auxiliary variables used for n literals (at most one and exactly one need the same)
+	 * --> never decreasing in n, so fewer literals fit into the variables reserved for n
+	 */
+	public long getAmountOfAuxiliaryVariables (int n)
+	{
+		return getAmountOfAuxiliaryVariables (m_encoding, n);
+	}
+
+	protected static long getAmountOfAuxiliaryVariables (CardinalityEncoding encoding, int n)
+	{
+		if (n < 2) return 0;
+
+		switch (encoding) {
+			case sequential:
+			case ladder:
+				return n - 1;
+			case commander:
+				if (n <= m_pairwise_limit) return 0;
+
+				int groups = (n + 2) / 3;
+
+				return groups + getAmountOfAuxiliaryVariables (encoding, groups);
+			case product:
+				if (n <= m_pairwise_limit) return 0;
+
+				int rows    = getProductRows (n);
+				int columns = (n + rows - 1) / rows;
+
+				return rows + columns + getAmountOfAuxiliaryVariables (encoding, rows) + getAmountOfAuxiliaryVariables (encoding, columns);
+			case binary:
+				return 32 - Integer.numberOfLeadingZeros (n - 1);
+			default:
+				return 0;
+		}
+	}
+
+	/*
+	 * auxiliary variables used for exactly k of n literals
+	 */
+	public long getAmountOfAuxiliaryVariables (int n, int k)
+	{
+		if (k == 1) return getAmountOfAuxiliaryVariables (n);
+
+		return (long) n * k;
+	}
+
+	/*
+	 * at most one of literals[0], ..., literals[length - 1]
+	 */
+	public void encodeAtMostOne (ClauseSink sink, int[] literals, int length, int firstVariable)
+	{
+		m_next_variable = firstVariable;
+
+		switch (m_encoding) {
+			case sequential:
+				encodeSequential (sink, literals, length);
+				break;
+			case commander:
+				encodeCommander (sink, literals, length);
+				break;
+			case product:
+				encodeProduct (sink, literals, length);
+				break;
+			case binary:
+				encodeBinary (sink, literals, length);
+				break;
+			case ladder:
+				encodeLadderAtMostOne (sink, literals, length);
+				break;
+			default:
+				encodePairwise (sink, literals, length);
+				break;
+		}
+	}
+
+	/*
+	 * exactly one of literals[0], ..., literals[length - 1]
+	 * --> a single literal becomes a unit clause, none the empty clause
+	 */
+	public void encodeExactlyOne (ClauseSink sink, int[] literals, int length, int firstVariable)
+	{
+		if (m_encoding == CardinalityEncoding.ladder) {
+			m_next_variable = firstVariable;
+
+			encodeLadderExactlyOne (sink, literals, length);
+			return;
+		}
+
+		encodeAtMostOne (sink, literals, length, firstVariable);
+
+		sink.addClause (literals, length);
+	}
+
+	/*
+	 * exactly k of literals[0], ..., literals[length - 1]
+	 */
+	public void encodeExactly (ClauseSink sink, int[] literals, int length, int k, int firstVariable)
+	{
+		if (k == 1) {
+			encodeExactlyOne (sink, literals, length, firstVariable);
+			return;
+		}
+
+		m_next_variable = firstVariable;
+
+		encodeCounter (sink, literals, length, k);
+	}
+
+	/*
+	 * ===============================================================================
+	 * strategies ...
+	 * ===============================================================================
+	 */
+
+	protected void encodePairwise (ClauseSink sink, int[] literals, int length)
+	{
+		for (int i = 0; i < length; i++) {
+			for (int j = i + 1; j < length; j++) {
+				sink.addBinary (- literals[i], - literals[j]);
+			}
+		}
+	}
+
+	/*
+	 * s_i: one of literals[0], ..., literals[i] is true
+	 */
+	protected void encodeSequential (ClauseSink sink, int[] literals, int length)
+	{
+		if (length < 2) return;
+
+		int first = allocate (length - 1);
+
+		sink.addBinary (- literals[0], first);
+
+		for (int i = 1; i < length - 1; i++) {
+			sink.addBinary (- literals[i], first + i);
+			sink.addBinary (- (first + i - 1), first + i);
+			sink.addBinary (- literals[i], - (first + i - 1));
+		}
+
+		sink.addBinary (- literals[length - 1], - (first + length - 2));
+	}
+
+	/*
+	 * groups of 3 literals, each literal implies the commander of its group,
+	 * at most one literal per group and at most one commander
+	 */
+	protected void encodeCommander (ClauseSink sink, int[] literals, int length)
+	{
+		if (length <= m_pairwise_limit) {
+			encodePairwise (sink, literals, length);
+			return;
+		}
+
+		int   groups_count = (length + 2) / 3;
+		int   first        = allocate (groups_count);
+		int[] commanders   = new int [groups_count];
+		int[] group        = new int [3];
+
+		for (int i_group = 0; i_group < groups_count; i_group ++) {
+			int group_length = 0;
+
+			for (int i = 3 * i_group; i < Math.min (3 * i_group + 3, length); i++) {
+				group[group_length ++] = literals[i];
+
+				sink.addBinary (- literals[i], first + i_group);
+			}
+
+			encodePairwise (sink, group, group_length);
+
+			commanders[i_group] = first + i_group;
+		}
+
+		encodeCommander (sink, commanders, groups_count);
+	}
+
+	/*
+	 * literal k in row k / columns and column k % columns,
+	 * it implies both --> at most one row and at most one column
+	 */
+	protected void encodeProduct (ClauseSink sink, int[] literals, int length)
+	{
+		if (length <= m_pairwise_limit) {
+			encodePairwise (sink, literals, length);
+			return;
+		}
+
+		int rows_count    = getProductRows (length);
+		int columns_count = (length + rows_count - 1) / rows_count;
+
+		int first_row    = allocate (rows_count);
+		int first_column = allocate (columns_count);
+
+		for (int k = 0; k < length; k++) {
+			sink.addBinary (- literals[k], first_row + k / columns_count);
+			sink.addBinary (- literals[k], first_column + k % columns_count);
+		}
+
+		int[] rows    = new int [rows_count];
+		int[] columns = new int [columns_count];
+
+		for (int i = 0; i < rows_count; i++) rows[i] = first_row + i;
+		for (int i = 0; i < columns_count; i++) columns[i] = first_column + i;
+
+		encodeProduct (sink, rows, rows_count);
+		encodeProduct (sink, columns, columns_count);
+	}
+
+	/*
+	 * a true literal fixes the bits b_k to its index
+	 */
+	protected void encodeBinary (ClauseSink sink, int[] literals, int length)
+	{
+		if (length < 2) return;
+
+		int bits_count = (int) getAmountOfAuxiliaryVariables (CardinalityEncoding.binary, length);
+		int first      = allocate (bits_count);
+
+		for (int i = 0; i < length; i++) {
+			for (int k = 0; k < bits_count; k++) {
+				sink.addBinary (- literals[i], (((i >> k) & 1) != 0 ? first + k : - (first + k)));
+			}
+		}
+	}
+
+	/*
+	 * s_i: the true literal comes after literals[i]
+	 * --> literals[i] implies s_i-1 and not s_i, s_i implies s_i-1
+	 */
+	protected void encodeLadderAtMostOne (ClauseSink sink, int[] literals, int length)
+	{
+		if (length < 2) return;
+
+		int start_variable = allocate (length - 1);
+
+		for (int i = 0; i < length; i++) {
+			if (i > 0) sink.addBinary (- literals[i], (start_variable + i - 1));
+			if (i < length - 1) sink.addBinary (- literals[i], - (start_variable + i));
+			if ((i > 0) && (i < length - 1)) sink.addBinary ((start_variable + i - 1), - (start_variable + i));
+		}
+	}
+
+	/*
+	 * as above, additionally literals[i] is true if s_i-1 and not s_i
+	 */
+	protected void encodeLadderExactlyOne (ClauseSink sink, int[] literals, int length)
+	{
+		if (length < 2) {
+			sink.addClause (literals, length);
+			return;
+		}
+
+		int number_of_additional_variables = length - 1;
+		int start_variable                 = allocate (number_of_additional_variables);
+
+		for (int i = 0; i < length; i++) {
+			int current_literal = literals[i];
+
+			// i: start_variable + 0   --> n = 2
+			//    start_variable + 1   --> n = 3
+			//    ...
+			//    start_variable + N-2 --> n = N
+
+			if (i == 0) {
+				sink.addBinary (- current_literal, - (start_variable + i));
+				sink.addBinary (current_literal, (start_variable + i));
+			} else if (i == number_of_additional_variables) {
+				sink.addBinary (- current_literal, (start_variable + i - 1));
+				sink.addBinary (current_literal, - (start_variable + i - 1));
+			} else {
+				sink.addBinary (- current_literal, (start_variable + i - 1));
+				sink.addBinary (- current_literal, - (start_variable + i));
+				sink.addTernary (current_literal, - (start_variable + i - 1), (start_variable + i));
+				sink.addBinary ((start_variable + i - 1), - (start_variable + i));
+			}
+		}
+	}
+
+	/*
+	 * r_i,j (j = 1, ..., k): at least j of literals[0], ..., literals[i] are true,
+	 * defined in both directions --> at most k (no literal after r_i-1,k) and at least k (r_n-1,k)
+	 */
+	protected void encodeCounter (ClauseSink sink, int[] literals, int length, int k)
+	{
+		// fewer literals than k --> the empty clause
+		if (length < k) {
+			sink.addClause (literals, 0);
+			return;
+		}
+
+		int first = allocate (length * k);
+
+		for (int i = 0; i < length; i++) {
+			int literal = literals[i];
+
+			for (int j = 1; j <= k; j++) {
+				int current = first + i * k + (j - 1);
+
+				if (i == 0) {
+					// r_0,1 <--> literal, r_0,j false for j > 1
+					if (j == 1) {
+						sink.addBinary (- literal, current);
+						sink.addBinary (- current, literal);
+					} else {
+						sink.addUnit (- current);
+					}
+
+					continue;
+				}
+
+				int previous       = current - k;
+				int previous_lower = previous - 1;
+
+				sink.addBinary (- previous, current);
+
+				if (j == 1) {
+					sink.addBinary (- literal, current);
+					sink.addTernary (- current, previous, literal);
+				} else {
+					sink.addTernary (- previous_lower, - literal, current);
+					sink.addTernary (- current, previous, literal);
+					sink.addTernary (- current, previous, previous_lower);
+				}
+			}
+
+			if (i > 0) sink.addBinary (- (first + (i - 1) * k + (k - 1)), - literal);
+		}
+
+		sink.addUnit (first + (length - 1) * k + (k - 1));
+	}
+
+	/*
+	 * ===============================================================================
+	 * helper functions ...
+	 * ===============================================================================
+	 */
+
+	protected int allocate (int amount)
+	{
+		int result = m_next_variable;
+
+		m_next_variable += amount;
+
+		return result;
+	}
+
+	/*
+	 * rows of the product grid: ceil (sqrt (n))
+	 */
+	protected static int getProductRows (int n)
+	{
+		int rows = (int) Math.sqrt (n);
+
+		while (rows * rows < n) rows ++;
+
+		return rows;
+	}
+}
@@ -0,0 +1,16 @@
+package edgematching.cnf;
+
+/*
+ * strategies of CardinalityEncoder for "at most one" / "exactly one" of n literals
+ *
+ * pairwise:   no auxiliary variables, n * (n - 1) / 2 binary clauses
+ * sequential: sequential counter (Sinz), n - 1 auxiliary variables, about 3n clauses
+ * commander:  groups of 3 with a commander each, the commanders recursively (Klieber and Kwon)
+ * product:    literals in a p x q grid, at most one row and one column (Chen), about 2 sqrt(n) auxiliary variables
+ * binary:     the index of the true literal in log2(n) bits, n log2(n) binary clauses
+ * ladder:     order encoding, x_i <--> (s_i-1 and not s_i), n - 1 auxiliary variables
+ */
+public enum CardinalityEncoding
+{
+	pairwise, sequential, commander, product, binary, ladder
+}
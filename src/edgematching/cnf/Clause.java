@@ -10,11 +10,12 @@ import java.lang.Math;
 public class Clause
 {
 	/*
-	 * m_literals contains the Literals of the Clause
+	 * m_literals contains the Literals of the Clause (first m_size entries are used)
 	 * m_hash_code for getting a useful hash for comparison of 2 clauses
 	 *  for equality
 	 */
-	protected ArrayList<Integer> m_literals;
+	protected int[] m_literals;
+	protected int m_size;
 	protected int m_hash_code;
 
 	/*
@@ -22,8 +23,7 @@ public class Clause
 	 */
 	public Clause ()
 	{
-		m_literals = new ArrayList<Integer> ();
-		m_hash_code = 0;
+		this (4);
 	}
 
 	/*
@@ -31,7 +31,8 @@ public class Clause
 	 */
 	public Clause (int estimatedSize)
 	{
-		m_literals = new ArrayList<Integer> (estimatedSize);
+		m_literals = new int [Math.max (estimatedSize, 1)];
+		m_size = 0;
 		m_hash_code = 0;
 	}
 
@@ -45,12 +46,12 @@ public class Clause
 	 */
 	public Clause (int[] literals)
 	{
-		m_literals = new ArrayList<Integer> (literals.length);
+		m_literals = new int [Math.max (literals.length, 1)];
+		m_size = 0;
 		m_hash_code = 0;
 
 		for (int i = 0; i < literals.length; i++) {
-			m_literals.add (literals[i]);
-			m_hash_code ^= literals[i];
+			add (literals[i]);
 		}
 	}
 
@@ -61,15 +62,34 @@ public class Clause
 	public boolean add (int literal)
 	{
 		if (literal != 0) {
-			if (m_literals.add (literal)) {
-				m_hash_code ^= literal;
-				return true;
+			if (m_size == m_literals.length) {
+				m_literals = Arrays.copyOf (m_literals, 2 * m_size);
 			}
+
+			m_literals[m_size ++] = literal;
+			m_hash_code ^= literal;
+			return true;
 		}
 
 		return false;
 	}
 
+	/*
+	 * amount of literals in the clause
+	 */
+	public int getSize ()
+	{
+		return m_size;
+	}
+
+	/*
+	 * literal at position index (in {0, ..., getSize () - 1})
+	 */
+	public int getLiteral (int index)
+	{
+		return m_literals[index];
+	}
+
 	/*
 	 * get all variables of the clause --> absolute value of literals
 	 */
@@ -77,8 +97,8 @@ public class Clause
 	{
 		HashSet<Integer> result = new HashSet<Integer> ();
 
-		for (Integer i_literal : m_literals) {
-			result.add (Math.abs (i_literal));
+		for (int i = 0; i < m_size; i++) {
+			result.add (Math.abs (m_literals[i]));
 		}
 
 		return result;
@@ -89,14 +109,14 @@ public class Clause
 	 */
 	public String toString ()
 	{
-		String result = new String ();
+		StringBuilder result = new StringBuilder ();
 
-		for (Iterator<Integer> i_literal = m_literals.iterator (); i_literal.hasNext (); ) {
-			result += i_literal.next ();
-			if (i_literal.hasNext ()) result += " ";
+		for (int i = 0; i < m_size; i++) {
+			result.append (m_literals[i]);
+			if (i + 1 < m_size) result.append (' ');
 		}
 		
-		return result;
+		return result.toString ();
 	}
 
 	/*
@@ -118,6 +138,18 @@ public class Clause
 		return m_hash_code;
 	}
 
+	/*
+	 * true, if the clause contains the given literal
+	 */
+	public boolean contains (int literal)
+	{
+		for (int i = 0; i < m_size; i++) {
+			if (m_literals[i] == literal) return true;
+		}
+
+		return false;
+	}
+
 	/*
 	 * check for equality with another Clause
 	 */
@@ -136,11 +168,11 @@ public class Clause
 
 		// first check hashcode and length
 		if (other_clause.m_hash_code != this.m_hash_code) return false;
-		if (other_clause.m_literals.size () != this.m_literals.size ()) return false;
+		if (other_clause.m_size != this.m_size) return false;
 
 		// if all the same until now, check for different literals
-		for (Integer i_literal : m_literals) {
-			if (! other_clause.m_literals.contains (i_literal)) return false;
+		for (int i = 0; i < m_size; i++) {
+			if (! other_clause.contains (m_literals[i])) return false;
 		}
 
 		// if this part is reached, they are equal (semantically)
@@ -0,0 +1,116 @@
+package edgematching.cnf;
+
+import java.util.*;
+
+/*
+ * sink buffering clauses to pass them on to another sink later
+ * --> e.g. each thread of a parallel encoding writes into its own buffer,
+ *  the buffers are written to the real sink one after the other
+ *
+ * clauses are stored in one int-array: [size, literals ...]
+ */
+public class ClauseBuffer
+	implements ClauseSink
+{
+	protected int[] m_literals;
+	protected int   m_literals_count;
+	protected int   m_clauses_count;
+
+	public ClauseBuffer ()
+	{
+		m_literals       = new int [1024];
+		m_literals_count = 0;
+		m_clauses_count  = 0;
+	}
+
+	public void addUnit (int literal)
+	{
+		ensureCapacity (2);
+
+		m_literals[m_literals_count ++] = 1;
+		m_literals[m_literals_count ++] = literal;
+		m_clauses_count ++;
+	}
+
+	public void addBinary (int literal1, int literal2)
+	{
+		ensureCapacity (3);
+
+		m_literals[m_literals_count ++] = 2;
+		m_literals[m_literals_count ++] = literal1;
+		m_literals[m_literals_count ++] = literal2;
+		m_clauses_count ++;
+	}
+
+	public void addTernary (int literal1, int literal2, int literal3)
+	{
+		ensureCapacity (4);
+
+		m_literals[m_literals_count ++] = 3;
+		m_literals[m_literals_count ++] = literal1;
+		m_literals[m_literals_count ++] = literal2;
+		m_literals[m_literals_count ++] = literal3;
+		m_clauses_count ++;
+	}
+
+	public void addClause (int[] literals, int length)
+	{
+		ensureCapacity (length + 1);
+
+		m_literals[m_literals_count ++] = length;
+		System.arraycopy (literals, 0, m_literals, m_literals_count, length);
+		m_literals_count += length;
+		m_clauses_count ++;
+	}
+
+	public int getAmountOfClauses ()
+	{
+		return m_clauses_count;
+	}
+
+	/*
+	 * pass all clauses on to sink in the order they were added
+	 * --> clauses of size 1 to 3 are passed with the fixed-arity methods again
+	 */
+	public void writeTo (ClauseSink sink)
+	{
+		int[] clause_buffer = new int [16];
+
+		for (int i = 0; i < m_literals_count; ) {
+			int size = m_literals[i ++];
+
+			switch (size) {
+				case 1:
+					sink.addUnit (m_literals[i]);
+					break;
+				case 2:
+					sink.addBinary (m_literals[i], m_literals[i + 1]);
+					break;
+				case 3:
+					sink.addTernary (m_literals[i], m_literals[i + 1], m_literals[i + 2]);
+					break;
+				default:
+					if (clause_buffer.length < size) clause_buffer = new int [2 * size];
+
+					System.arraycopy (m_literals, i, clause_buffer, 0, size);
+					sink.addClause (clause_buffer, size);
+					break;
+			}
+
+			i += size;
+		}
+	}
+
+	public void clear ()
+	{
+		m_literals_count = 0;
+		m_clauses_count  = 0;
+	}
+
+	protected void ensureCapacity (int additionalLiterals)
+	{
+		if (m_literals_count + additionalLiterals <= m_literals.length) return;
+
+		m_literals = Arrays.copyOf (m_literals, Math.max (m_literals_count + additionalLiterals, 2 * m_literals.length));
+	}
+}
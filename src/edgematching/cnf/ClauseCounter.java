@@ -0,0 +1,74 @@
+package edgematching.cnf;
+
+/*
+ * sink only counting the clauses and literals it gets
+ * --> used for a dry run of an encoding to compute the DIMACS-header
+ */
+public class ClauseCounter
+	implements ClauseSink
+{
+	protected int  m_clauses_count;
+	protected long m_literals_count;
+	protected int  m_max_variable;
+
+	public ClauseCounter ()
+	{
+		m_clauses_count  = 0;
+		m_literals_count = 0;
+		m_max_variable   = 0;
+	}
+
+	public void addUnit (int literal)
+	{
+		countLiteral (literal);
+		m_clauses_count ++;
+	}
+
+	public void addBinary (int literal1, int literal2)
+	{
+		countLiteral (literal1);
+		countLiteral (literal2);
+		m_clauses_count ++;
+	}
+
+	public void addTernary (int literal1, int literal2, int literal3)
+	{
+		countLiteral (literal1);
+		countLiteral (literal2);
+		countLiteral (literal3);
+		m_clauses_count ++;
+	}
+
+	public void addClause (int[] literals, int length)
+	{
+		for (int i = 0; i < length; i++) {
+			countLiteral (literals[i]);
+		}
+
+		m_clauses_count ++;
+	}
+
+	public int getAmountOfClauses ()
+	{
+		return m_clauses_count;
+	}
+
+	public long getAmountOfLiterals ()
+	{
+		return m_literals_count;
+	}
+
+	public int getMaxVariable ()
+	{
+		return m_max_variable;
+	}
+
+	protected final void countLiteral (int literal)
+	{
+		int variable = Math.abs (literal);
+
+		if (variable > m_max_variable) m_max_variable = variable;
+
+		m_literals_count ++;
+	}
+}
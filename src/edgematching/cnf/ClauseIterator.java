@@ -0,0 +1,91 @@
+package edgematching.cnf;
+
+/*
+ * iterator over the clauses of a CNFFormula
+ * --> no objects are created per clause, the literals are read directly
+ *  out of the literal arena of the formula
+ *
+ * usage:
+ *  for (ClauseIterator i_clause = formula.clauseIterator (); i_clause.next (); ) {
+ *   for (int i = i_clause.getStart (); i < i_clause.getEnd (); i++) {
+ *    ... i_clause.getLiterals ()[i] ...
+ *   }
+ *  }
+ */
+public class ClauseIterator
+{
+	/*
+	 * arena and clause offsets of the formula
+	 * m_current_clause: index of the current clause, -1 before first call of next
+	 */
+	protected int[] m_literals;
+	protected int[] m_clause_starts;
+	protected int   m_clauses_count;
+	protected int   m_current_clause;
+
+	/*
+	 * constructor, called by CNFFormula
+	 */
+	protected ClauseIterator (int[] literals, int[] clauseStarts, int clausesCount)
+	{
+		m_literals       = literals;
+		m_clause_starts  = clauseStarts;
+		m_clauses_count  = clausesCount;
+		m_current_clause = -1;
+	}
+
+	/*
+	 * move to the next clause, false if there is none
+	 */
+	public boolean next ()
+	{
+		if (m_current_clause + 1 >= m_clauses_count) return false;
+
+		m_current_clause ++;
+
+		return true;
+	}
+
+	/*
+	 * arena containing the literals of the current clause
+	 * between getStart () (inclusive) and getEnd () (exclusive)
+	 */
+	public int[] getLiterals ()
+	{
+		return m_literals;
+	}
+
+	public int getStart ()
+	{
+		return m_clause_starts[m_current_clause];
+	}
+
+	public int getEnd ()
+	{
+		return m_clause_starts[m_current_clause + 1];
+	}
+
+	/*
+	 * amount of literals of the current clause
+	 */
+	public int getSize ()
+	{
+		return getEnd () - getStart ();
+	}
+
+	/*
+	 * literal at index (in {0, ..., getSize () - 1}) of the current clause
+	 */
+	public int getLiteral (int index)
+	{
+		return m_literals[m_clause_starts[m_current_clause] + index];
+	}
+
+	/*
+	 * index of the current clause in the formula
+	 */
+	public int getClauseIndex ()
+	{
+		return m_current_clause;
+	}
+}
@@ -0,0 +1,22 @@
+package edgematching.cnf;
+
+/*
+ * interface for everything clauses can be written to
+ * (e.g. the literal arena of a CNFFormula)
+ *
+ * the fixed-arity methods allow encodings to create clauses
+ * without allocating an array per clause;
+ * literals must not be 0
+ */
+public interface ClauseSink
+{
+	void addUnit (int literal);
+	void addBinary (int literal1, int literal2);
+	void addTernary (int literal1, int literal2, int literal3);
+
+	/*
+	 * add the first length literals of the array as one clause
+	 * --> the array may be reused by the caller afterwards
+	 */
+	void addClause (int[] literals, int length);
+}
@@ -0,0 +1,111 @@
+package edgematching.cnf;
+
+import java.io.*;
+
+/*
+ * sink writing every clause directly in DIMACS-format
+ * --> memory is bounded by the buffer of the DIMACSWriter
+ *
+ * ClauseSink can't throw IOExceptions, so the first exception is stored
+ * and all following clauses are dropped (see getException)
+ */
+public class DIMACSClauseSink
+	implements ClauseSink
+{
+	protected DIMACSWriter m_writer;
+	protected int          m_clauses_count;
+	protected int[]        m_clause;
+	protected IOException  m_exception;
+
+	public DIMACSClauseSink (DIMACSWriter writer)
+	{
+		m_writer        = writer;
+		m_clauses_count = 0;
+		m_clause        = new int [3];
+		m_exception     = null;
+	}
+
+	/*
+	 * write comment and header for a problem
+	 * --> in counted mode the problem is encoded once into a ClauseCounter first
+	 */
+	public void writeHeader (SATSolvable problem, DIMACSHeaderMode mode)
+	{
+		int clauses = 0;
+
+		if (mode == DIMACSHeaderMode.counted) {
+			ClauseCounter counter = new ClauseCounter ();
+
+			problem.encodeToSAT (counter);
+
+			clauses = counter.getAmountOfClauses ();
+		}
+
+		try {
+			m_writer.writeComment (problem.getSATComment ());
+			m_writer.writeHeader (problem.getAmountOfSATVariables (), clauses);
+		} catch (IOException exception) {
+			m_exception = exception;
+		}
+	}
+
+	public void addUnit (int literal)
+	{
+		m_clause[0] = literal;
+		addClause (m_clause, 1);
+	}
+
+	public void addBinary (int literal1, int literal2)
+	{
+		m_clause[0] = literal1;
+		m_clause[1] = literal2;
+		addClause (m_clause, 2);
+	}
+
+	public void addTernary (int literal1, int literal2, int literal3)
+	{
+		m_clause[0] = literal1;
+		m_clause[1] = literal2;
+		m_clause[2] = literal3;
+		addClause (m_clause, 3);
+	}
+
+	public void addClause (int[] literals, int length)
+	{
+		if (m_exception != null) return;
+
+		try {
+			m_writer.writeClause (literals, 0, length);
+			m_clauses_count ++;
+		} catch (IOException exception) {
+			m_exception = exception;
+		}
+	}
+
+	/*
+	 * hand over all buffered clauses to the underlying stream
+	 */
+	public void flush ()
+	{
+		if (m_exception != null) return;
+
+		try {
+			m_writer.flush ();
+		} catch (IOException exception) {
+			m_exception = exception;
+		}
+	}
+
+	public int getAmountOfClauses ()
+	{
+		return m_clauses_count;
+	}
+
+	/*
+	 * first exception while writing, null if everything was written
+	 */
+	public IOException getException ()
+	{
+		return m_exception;
+	}
+}
@@ -0,0 +1,14 @@
+package edgematching.cnf;
+
+/*
+ * how the "p cnf" line is created, if clauses are streamed to a solver
+ *
+ * provisional: the amount of variables is exact, the amount of clauses is written as 0
+ *  --> only for solvers not checking the amount of clauses (e.g. minisat without -strict)
+ * counted: the encoding is run twice, the first run only counts the clauses
+ *  --> exact header, costs an additional encoding run but no memory
+ */
+public enum DIMACSHeaderMode
+{
+	provisional, counted
+}
@@ -0,0 +1,171 @@
+package edgematching.cnf;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/*
+ * writes a cnf-formula in DIMACS-format to a stream or channel
+ *
+ * literals are formatted directly into a reusable byte-buffer,
+ * which is handed over to the channel whenever it is full
+ * --> the formula is never held as String
+ */
+public class DIMACSWriter
+{
+	/*
+	 * m_channel: destination of the output
+	 * m_bytes: buffer with the formatted output, m_position: amount of used bytes
+	 * m_digits: scratch space for converting one int to ASCII
+	 */
+	protected WritableByteChannel m_channel;
+	protected byte[]     m_bytes;
+	protected ByteBuffer m_byte_buffer;
+	protected int        m_position;
+	protected byte[]     m_digits;
+
+	protected static final int m_default_buffer_size = 1 << 16;
+
+	/*
+	 * constructor writing to an OutputStream
+	 */
+	public DIMACSWriter (OutputStream stream)
+	{
+		this (Channels.newChannel (stream));
+	}
+
+	/*
+	 * constructor writing to a channel
+	 */
+	public DIMACSWriter (WritableByteChannel channel)
+	{
+		m_channel     = channel;
+		m_bytes       = new byte [m_default_buffer_size];
+		m_byte_buffer = ByteBuffer.wrap (m_bytes);
+		m_position    = 0;
+		m_digits      = new byte [11];
+	}
+
+	/*
+	 * write the comment --> each line begins with "c "
+	 */
+	public void writeComment (String comment) throws IOException
+	{
+		if (comment == null) {
+			writeString ("c cnf-formula to be satisfied\n");
+			return;
+		}
+
+		Scanner line_scanner = new Scanner (comment);
+
+		while (line_scanner.hasNextLine ()) {
+			writeString ("c ");
+			writeString (line_scanner.nextLine ());
+			writeByte ('\n');
+		}
+	}
+
+	/*
+	 * write the header "p cnf <variables> <clauses>"
+	 */
+	public void writeHeader (int variables, int clauses) throws IOException
+	{
+		writeString ("p cnf ");
+		writeInt (variables);
+		writeByte (' ');
+		writeInt (clauses);
+		writeByte ('\n');
+	}
+
+	/*
+	 * write one clause out of literals[start] to literals[end - 1], terminated by " 0\n"
+	 */
+	public void writeClause (int[] literals, int start, int end) throws IOException
+	{
+		for (int i = start; i < end; i++) {
+			writeInt (literals[i]);
+			writeByte (' ');
+		}
+
+		writeByte ('0');
+		writeByte ('\n');
+	}
+
+	/*
+	 * write a whole formula: comment, header and all clauses
+	 */
+	public void writeFormula (CNFFormula formula) throws IOException
+	{
+		writeComment (formula.m_comment);
+		writeHeader (formula.getAmountOfVariables (), formula.getAmountOfClauses ());
+
+		for (ClauseIterator i_clause = formula.clauseIterator (); i_clause.next (); ) {
+			writeClause (i_clause.getLiterals (), i_clause.getStart (), i_clause.getEnd ());
+		}
+	}
+
+	public void writeString (String string) throws IOException
+	{
+		for (int i = 0; i < string.length (); i++) {
+			writeByte (string.charAt (i));
+		}
+	}
+
+	public void writeByte (int character) throws IOException
+	{
+		if (m_position == m_bytes.length) flushBuffer ();
+
+		m_bytes[m_position ++] = (byte) character;
+	}
+
+	/*
+	 * convert an int to ASCII without creating a String
+	 * --> digits are created backwards in m_digits
+	 */
+	public void writeInt (int value) throws IOException
+	{
+		if (m_position + m_digits.length > m_bytes.length) flushBuffer ();
+
+		if (value == Integer.MIN_VALUE) {
+			writeString (Integer.toString (value));
+			return;
+		}
+
+		if (value < 0) {
+			m_bytes[m_position ++] = '-';
+			value = -value;
+		}
+
+		int digits_count = 0;
+
+		do {
+			m_digits[digits_count ++] = (byte) ('0' + (value % 10));
+			value /= 10;
+		} while (value != 0);
+
+		while (digits_count > 0) {
+			m_bytes[m_position ++] = m_digits[-- digits_count];
+		}
+	}
+
+	/*
+	 * hand over all buffered bytes to the channel (the channel is not closed)
+	 */
+	public void flush () throws IOException
+	{
+		flushBuffer ();
+	}
+
+	protected void flushBuffer () throws IOException
+	{
+		m_byte_buffer.clear ();
+		m_byte_buffer.limit (m_position);
+
+		while (m_byte_buffer.hasRemaining ()) {
+			m_channel.write (m_byte_buffer);
+		}
+
+		m_position = 0;
+	}
+}
@@ -0,0 +1,206 @@
+package edgematching.cnf;
+
+import java.io.*;
+
+/*
+ * base class for sat-solvers run as external processes
+ * --> encoding / decoding, deadline, cpu-limit and cancellation are handled here,
+ *  subclasses only start the solver and read its answer (see runSolver)
+ */
+public abstract class ExternalSATSolver
+	implements SATSolver
+{
+	protected SATResult m_result;
+	protected Model     m_solution;
+
+	/*
+	 * if set, clauses are streamed to the solver while encoding (see setStreaming)
+	 */
+	protected DIMACSHeaderMode m_header_mode;
+
+	/*
+	 * cpu-time limit of the solver process in milliseconds, 0 = none
+	 */
+	protected long m_cpu_limit;
+
+	/*
+	 * currently running process and its watchdog
+	 */
+	protected Process         m_process;
+	protected ProcessWatchdog m_watchdog;
+	protected volatile boolean m_cancelled;
+
+	public ExternalSATSolver ()
+	{
+		m_result      = SATResult.unknown;
+		m_solution    = null;
+		m_header_mode = null;
+		m_cpu_limit   = 0;
+		m_process     = null;
+		m_watchdog    = null;
+		m_cancelled   = false;
+	}
+
+	/*
+	 * stream the clauses directly into the solver instead of building a CNFFormula
+	 * --> headerMode null switches streaming off
+	 */
+	public void setStreaming (DIMACSHeaderMode headerMode)
+	{
+		m_header_mode = headerMode;
+	}
+
+	public void setCPULimit (long milliseconds)
+	{
+		m_cpu_limit = milliseconds;
+	}
+
+	public void solveSAT (SATSolvable problem)
+	{
+		solveSAT (problem, 0);
+	}
+
+	public SATResult solveSAT (SATSolvable problem, long deadline)
+	{
+		prepareRun ();
+
+		if (m_header_mode != null) {
+			System.err.println ("encoding and solving...");
+			m_result = runSolver (null, problem, deadline);
+
+			System.err.println ("checking solution...");
+			if (m_result != SATResult.sat) return m_result;
+
+			System.err.println ("decoding solution...");
+			problem.decodeSolution (m_solution);
+
+			return m_result;
+		}
+
+		System.err.println ("encoding problem...");
+		CNFFormula formula = problem.encodeToSAT ();
+
+		System.err.println ("solving...");
+		solveFormula (formula, deadline);
+
+		System.err.println ("checking solution...");
+		if (m_result != SATResult.sat) return m_result;
+
+		formula.setSolution (m_solution);
+
+		System.err.println ("decoding solution...");
+		problem.decodeSolution (formula);
+
+		return m_result;
+	}
+
+	/*
+	 * solve an already encoded formula, the model can be read with getModel
+	 * --> the formula is only read, so several solvers may solve it at the same time
+	 */
+	public SATResult solveFormula (CNFFormula formula, long deadline)
+	{
+		m_result   = runSolver (formula, null, deadline);
+		m_solution = (m_result == SATResult.sat ? m_solution : null);
+
+		return m_result;
+	}
+
+	/*
+	 * reset result and cancellation before a new run
+	 * --> a cancel after this call stops the following solveFormula
+	 */
+	protected void prepareRun ()
+	{
+		m_cancelled = false;
+		m_result    = SATResult.unknown;
+		m_solution  = null;
+	}
+
+	/*
+	 * run the solver either on formula or (if formula is null) on the streamed clauses of problem
+	 * --> has to set m_solution if the result is sat
+	 */
+	protected abstract SATResult runSolver (CNFFormula formula, SATSolvable problem, long deadline);
+
+	public boolean getSatisfiable ()
+	{
+		return (m_result == SATResult.sat);
+	}
+
+	public SATResult getResult ()
+	{
+		return m_result;
+	}
+
+	/*
+	 * model of the last run, null if it was not sat
+	 */
+	public Model getModel ()
+	{
+		return m_solution;
+	}
+
+	public void cancel ()
+	{
+		m_cancelled = true;
+
+		synchronized (this) {
+			if (m_process != null) ProcessWatchdog.killProcessTree (m_process);
+		}
+	}
+
+	/*
+	 * start the solver process and its watchdog
+	 * --> returns null if the run was cancelled or the deadline has already passed
+	 */
+	protected synchronized Process startProcess (String[] command, long deadline) throws IOException
+	{
+		if (m_cancelled) return null;
+		if ((deadline > 0) && (System.currentTimeMillis () >= deadline)) return null;
+
+		m_process  = Runtime.getRuntime ().exec (command);
+		m_watchdog = new ProcessWatchdog (command[0] + "-watchdog", m_process, deadline, m_cpu_limit);
+
+		m_watchdog.start ();
+
+		return m_process;
+	}
+
+	/*
+	 * wait for the end of the process and correct the result of a killed solver
+	 * --> exit codes 10 / 20 mean the solver finished its answer before it could be killed
+	 */
+	protected SATResult finishProcess (SATResult result) throws InterruptedException
+	{
+		Process         process;
+		ProcessWatchdog watchdog;
+
+		synchronized (this) {
+			process    = m_process;
+			watchdog   = m_watchdog;
+			m_process  = null;
+			m_watchdog = null;
+		}
+
+		if (process == null) return result;
+
+		int exit_value = process.waitFor ();
+		watchdog.join ();
+
+		if ((exit_value == 10) || (exit_value == 20)) return result;
+
+		if (watchdog.hasTimedOut ()) return SATResult.timeout;
+		if (m_cancelled)             return SATResult.unknown;
+
+		return result;
+	}
+
+	/*
+	 * result, if startProcess did not start a process
+	 */
+	protected SATResult notStarted ()
+	{
+		return (m_cancelled ? SATResult.unknown : SATResult.timeout);
+	}
+}
@@ -0,0 +1,87 @@
+package edgematching.cnf;
+
+import java.io.*;
+
+/*
+ * thread writing a cnf-formula in dimacs-format to the stdin of a solver process
+ * --> the stream is closed afterwards, so the solver sees the end of its input
+ *
+ * instead of a CNFFormula a SATSolvable can be given,
+ * whose clauses are then streamed to the solver while they are encoded
+ */
+public class FormulaWriter
+	extends Thread
+{
+	protected CNFFormula       m_formula;
+	protected SATSolvable      m_problem;
+	protected DIMACSHeaderMode m_header_mode;
+	protected OutputStream     m_output;
+
+	protected IOException      m_exception;
+
+	public FormulaWriter (String name, CNFFormula formula, OutputStream output)
+	{
+		super (name);
+
+		m_formula   = formula;
+		m_problem   = null;
+		m_output    = output;
+		m_exception = null;
+
+		setDaemon (true);
+	}
+
+	public FormulaWriter (String name, SATSolvable problem, DIMACSHeaderMode headerMode, OutputStream output)
+	{
+		super (name);
+
+		m_formula     = null;
+		m_problem     = problem;
+		m_header_mode = headerMode;
+		m_output      = output;
+		m_exception   = null;
+
+		setDaemon (true);
+	}
+
+	public void run ()
+	{
+		try {
+			if (m_formula != null) {
+				m_formula.writeDIMACS (m_output);
+			} else {
+				streamProblem ();
+			}
+		} catch (IOException exception) {
+			m_exception = exception;
+		}
+
+		try {
+			m_output.close ();
+		} catch (IOException exception) {
+			if (m_exception == null) m_exception = exception;
+		}
+	}
+
+	protected void streamProblem () throws IOException
+	{
+		DIMACSClauseSink sink = new DIMACSClauseSink (new DIMACSWriter (m_output));
+
+		sink.writeHeader (m_problem, m_header_mode);
+		m_problem.encodeToSAT (sink);
+		sink.flush ();
+
+		if (sink.getException () != null) throw sink.getException ();
+	}
+
+	/*
+	 * wait until the whole formula is written,
+	 * return false if writing failed (e.g. the solver exited early)
+	 */
+	public boolean finish () throws InterruptedException
+	{
+		join ();
+
+		return (m_exception == null);
+	}
+}
@@ -0,0 +1,52 @@
+package edgematching.cnf;
+
+/*
+ * incremental sat-solver (modeled on IPASIR)
+ * --> clauses can be added between calls of solve, learnt clauses are kept,
+ *  assumptions only hold for the next call of solve
+ *
+ * as ClauseSink, an encoding can write its clauses directly into the solver
+ * (see SATSolvable.encodeToSAT (ClauseSink))
+ *
+ * literals are given as in DIMACS (variable or -variable),
+ * new variables are created when they are used
+ */
+public interface IncrementalSATSolver
+	extends ClauseSink
+{
+	/*
+	 * add a literal to the current clause, 0 terminates the clause (ipasir_add)
+	 */
+	void addLiteral (int literal);
+
+	/*
+	 * assume a literal for the next call of solve (ipasir_assume)
+	 */
+	void assume (int literal);
+
+	/*
+	 * solve under the assumptions (ipasir_solve)
+	 * --> deadline is System.currentTimeMillis () based, 0 = none
+	 */
+	SATResult solve (long deadline);
+
+	/*
+	 * after sat: literal if it is true in the model, -literal if it is false (ipasir_val)
+	 */
+	int getValue (int literal);
+
+	/*
+	 * after unsat: true if the assumed literal was used to prove unsatisfiability (ipasir_failed)
+	 */
+	boolean isFailed (int literal);
+
+	/*
+	 * model of the last sat-result
+	 */
+	Model getModel ();
+
+	/*
+	 * stop a running solve from another thread (ipasir_set_terminate)
+	 */
+	void cancel ();
+}
@@ -5,10 +5,9 @@ import java.util.*;
 import java.lang.Math;
 
 public class MiniSAT
-	implements SATSolver
+	extends ExternalSATSolver
 {
 	protected String m_mini_sat_path;
-	protected boolean m_satisfiable;
 
 	protected String m_cnf_file;
 	protected String m_sol_file;
@@ -16,7 +15,6 @@ public class MiniSAT
 	public MiniSAT (String pathToBinary, String pathForFiles)
 	{
 		m_mini_sat_path = pathToBinary;
-		m_satisfiable   = false;
 
 		Integer file_prefix = (int) (Math.random () * 100000);
 
@@ -24,88 +22,99 @@ public class MiniSAT
 		m_sol_file = pathForFiles + "/mini_sat_" + file_prefix + ".sol";
 	}
 
-	public void solveSAT (SATSolvable problem)
+	/*
+	 * with a formula: write the cnf file, run minisat and read the solution file
+	 * without a formula: the clauses of problem are streamed to /dev/stdin of minisat
+	 */
+	protected SATResult runSolver (CNFFormula formula, SATSolvable problem, long deadline)
 	{
-		m_satisfiable = false;
+		int variables;
 
-		System.err.println ("encoding problem...");
-		CNFFormula formula = problem.encodeToSAT ();
+		if (formula != null) {
+			System.err.println ("writing cnf file...");
+			if (! writeInputFile (formula, m_cnf_file)) return SATResult.error;
 
-		System.err.println ("writing cnf file...");
-		if (! writeInputFile (formula, m_cnf_file)) return;
-
-		System.err.println ("solving...");
-		if (! solveFormula ()) return;
+			variables = formula.getAmountOfVariables ();
+		} else {
+			variables = problem.getAmountOfSATVariables ();
+		}
 
-		System.err.println ("reading solution file...");
-		if (! readOutputFile (formula, m_sol_file)) return;
+		new File (m_sol_file).delete ();
 
-		System.err.println ("checking solution file...");
-		if (! m_satisfiable) return;
+		SATResult result = runMiniSAT (problem, deadline);
 
-		System.err.println ("decoding solution...");
-		problem.decodeSolution (formula);
-	}
+		if (result != SATResult.unknown) return result;
 
-	public boolean getSatisfiable ()
-	{
-		return m_satisfiable;
+		System.err.println ("reading solution file...");
+		return readOutputFile (variables, m_sol_file);
 	}
 
-	protected boolean solveFormula ()
+	/*
+	 * stdout and stderr of minisat are drained concurrently,
+	 * so neither of them can fill up and block the solver
+	 *
+	 * if problem is not null, its clauses are streamed to stdin while encoding
+	 * and minisat reads /dev/stdin instead of the cnf file
+	 *
+	 * returns unknown if the solution file has to be read
+	 */
+	protected SATResult runMiniSAT (SATSolvable problem, long deadline)
 	{
-		boolean result = false;
-
-		String[] command_array = {m_mini_sat_path, m_cnf_file, m_sol_file};
+		String   input_file    = (problem == null ? m_cnf_file : "/dev/stdin");
+		String[] command_array = {m_mini_sat_path, input_file, m_sol_file};
 
 		try {
-			Process mini_sat_process = Runtime.getRuntime ().exec (command_array);
+			Process mini_sat_process = startProcess (command_array, deadline);
+
+			if (mini_sat_process == null) return notStarted ();
 
-			BufferedReader error_stream_reader  = new BufferedReader (new InputStreamReader(mini_sat_process.getErrorStream()));
-			BufferedReader output_stream_reader = new BufferedReader (new InputStreamReader(mini_sat_process.getInputStream()));
-			
-			String current_output_line = output_stream_reader.readLine ();
+			FormulaWriter input_writer = null;
 
-			while (current_output_line != null) {
-				System.err.println (current_output_line);
-				current_output_line = output_stream_reader.readLine ();
+			if (problem != null) {
+				input_writer = new FormulaWriter ("minisat-stdin", problem, m_header_mode, mini_sat_process.getOutputStream ());
+				input_writer.start ();
+			} else {
+				mini_sat_process.getOutputStream ().close ();
 			}
 
-			String current_error_line  = error_stream_reader.readLine ();
+			StreamCopier output_copier = new StreamCopier ("minisat-stdout", mini_sat_process.getInputStream (), System.err);
+			StreamCopier error_copier  = new StreamCopier ("minisat-stderr", mini_sat_process.getErrorStream (), System.err);
 
-			while (current_error_line != null) {
-				System.err.println (current_error_line);
-				current_error_line = error_stream_reader.readLine ();
-			}
+			output_copier.start ();
+			error_copier.start ();
 
-			error_stream_reader.close ();
-			output_stream_reader.close ();
+			output_copier.finish ();
+			error_copier.finish ();
 
-			mini_sat_process.waitFor ();
+			SATResult result = finishProcess (SATResult.unknown);
 
-			result = true;
+			if (result != SATResult.unknown) return result;
+			if (m_cancelled)                 return SATResult.unknown;
+
+			if ((input_writer != null) && (! input_writer.finish ())) {
+				System.err.println ("Error writing formula to minisat...");
+				return SATResult.error;
+			}
+
+			return SATResult.unknown;
 		} catch (IOException exception) {
+			System.err.println ("Error running " + m_mini_sat_path + "...");
 		} catch (InterruptedException exception) {
 		}
 
-
-		return result;
+		return SATResult.error;
 	}
 
 	protected boolean writeInputFile (CNFFormula formula, String filename)
 	{
 		boolean result = false;
 
-		String toWrite = formula.toDIMACS ();
-
 		try {
-			BufferedWriter writer = new BufferedWriter (new FileWriter (filename));
+			FileOutputStream stream = new FileOutputStream (filename);
 
-			writer.write (toWrite, 0, toWrite.length ());
+			formula.writeDIMACS (stream.getChannel ());
 
-			writer.flush ();
-
-			writer.close ();
+			stream.close ();
 
 			result = true;
 		} catch (IOException exception) {
@@ -116,41 +125,31 @@ public class MiniSAT
 		return result;
 	}
 
-	protected boolean readOutputFile (CNFFormula formula, String filename)
+	/*
+	 * read the solution file: sat, unsat or unknown (INDET)
+	 */
+	protected SATResult readOutputFile (int variables, String filename)
 	{
-		boolean result = false;
-
 		try {
-			BufferedReader reader = new BufferedReader (new FileReader (filename));
+			FileInputStream stream = new FileInputStream (filename);
+			ModelParser     parser = new ModelParser (variables);
 
-			String firstLine = reader.readLine ();
+			parser.parseMiniSATResult (stream.getChannel ());
 
-			if (!firstLine.equals ("SAT")) return true;
+			stream.close ();
 
-			String solution_line = reader.readLine ();
-			ArrayList<Integer> solution_literals = new ArrayList<Integer> (formula.getAmountOfVariables ());
-			Scanner literal_scanner = new Scanner (solution_line);
-
-			while (literal_scanner.hasNextInt ()) {
-				int current_literal = literal_scanner.nextInt ();
-				if (current_literal != 0)
-					solution_literals.add (current_literal);
-				else
-					break;
+			if (parser.isSatisfiable ()) {
+				m_solution = parser.getModel ();
+				return SATResult.sat;
 			}
 
-			formula.setSolution (solution_literals);
-
-			m_satisfiable = true;
-
-			result = true;
+			if (parser.isUnsatisfiable ()) return SATResult.unsat;
 
-			reader.close ();
+			return SATResult.unknown;
 		} catch (IOException exception) {
 			System.err.println ("Error reading " + filename + "...");
-			return false;
 		}
 
-		return result;
+		return SATResult.error;
 	}
 }
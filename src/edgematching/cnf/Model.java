@@ -0,0 +1,147 @@
+package edgematching.cnf;
+
+import java.util.*;
+
+/*
+ * model of a cnf-formula
+ * --> bitset of the variables mapped to true, one bit per variable
+ */
+public class Model
+{
+	/*
+	 * m_words: bit i of word (variable >> 6) is set, if variable is true
+	 */
+	protected long[] m_words;
+
+	/*
+	 * constructor for a model with the variables {1, ..., variables} (all false)
+	 * --> grows automatically if greater variables are set
+	 */
+	public Model (int variables)
+	{
+		m_words = new long [(Math.max (variables, 1) >> 6) + 1];
+	}
+
+	/*
+	 * copy constructor
+	 */
+	public Model (Model model)
+	{
+		m_words = model.m_words.clone ();
+	}
+
+	/*
+	 * set a literal: positive literals map their variable to true, negative ones to false
+	 */
+	public void setLiteral (int literal)
+	{
+		if (literal > 0) {
+			setTrue (literal);
+		} else if (literal < 0) {
+			setFalse (-literal);
+		}
+	}
+
+	public void setTrue (int variable)
+	{
+		int word = variable >> 6;
+
+		if (word >= m_words.length) {
+			m_words = Arrays.copyOf (m_words, Math.max (word + 1, 2 * m_words.length));
+		}
+
+		m_words[word] |= (1L << variable);
+	}
+
+	public void setFalse (int variable)
+	{
+		int word = variable >> 6;
+
+		if (word < m_words.length) {
+			m_words[word] &= ~(1L << variable);
+		}
+	}
+
+	/*
+	 * true, if the variable is mapped to true
+	 */
+	public boolean isTrue (int variable)
+	{
+		int word = variable >> 6;
+
+		if ((variable <= 0) || (word >= m_words.length)) return false;
+
+		return ((m_words[word] & (1L << variable)) != 0);
+	}
+
+	/*
+	 * true, if the literal is satisfied by this model
+	 */
+	public boolean satisfies (int literal)
+	{
+		return (literal > 0 ? isTrue (literal) : ! isTrue (-literal));
+	}
+
+	/*
+	 * return the smallest true variable >= variable, -1 if there is none
+	 *
+	 * usage:
+	 *  for (int i_variable = model.nextTrueVariable (1); i_variable > 0; i_variable = model.nextTrueVariable (i_variable + 1))
+	 */
+	public int nextTrueVariable (int variable)
+	{
+		if (variable < 0) variable = 0;
+
+		int word = variable >> 6;
+
+		if (word >= m_words.length) return -1;
+
+		long current_word = m_words[word] & (-1L << variable);
+
+		while (true) {
+			if (current_word != 0) {
+				return (word << 6) + Long.numberOfTrailingZeros (current_word);
+			}
+
+			word ++;
+
+			if (word >= m_words.length) return -1;
+
+			current_word = m_words[word];
+		}
+	}
+
+	/*
+	 * amount of variables mapped to true
+	 */
+	public int getAmountOfTrueVariables ()
+	{
+		int result = 0;
+
+		for (long i_word : m_words) {
+			result += Long.bitCount (i_word);
+		}
+
+		return result;
+	}
+
+	/*
+	 * map all variables to false
+	 */
+	public void clear ()
+	{
+		Arrays.fill (m_words, 0L);
+	}
+
+	public String toString ()
+	{
+		StringBuilder result = new StringBuilder ();
+
+		for (int i_variable = nextTrueVariable (1); i_variable > 0; i_variable = nextTrueVariable (i_variable + 1)) {
+			if (result.length () > 0) result.append (' ');
+			result.append (i_variable);
+		}
+
+		return result.toString ();
+	}
+}
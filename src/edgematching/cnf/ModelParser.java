@@ -0,0 +1,212 @@
+package edgematching.cnf;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/*
+ * parser for the output of sat-solvers
+ * --> reads bytes directly out of a channel and sets the literals in a Model,
+ *  no Strings or Integers are created for the literals
+ *
+ * supported formats:
+ *  - competition format (picosat, cryptominisat, ...) on stdout:
+ *     "c comment", "s SATISFIABLE" / "s UNSATISFIABLE", "v literals ... 0"
+ *  - result file of minisat:
+ *     "SAT" followed by a line "literals ... 0", or "UNSAT" / "INDET"
+ */
+public class ModelParser
+{
+	/*
+	 * m_satisfiable / m_unsatisfiable: status read from the solver output
+	 *  (both false if the solver did not decide)
+	 * m_model: literals of the model
+	 */
+	protected boolean m_satisfiable;
+	protected boolean m_unsatisfiable;
+	protected Model   m_model;
+
+	/*
+	 * input buffer and position of next byte to read
+	 */
+	protected ReadableByteChannel m_channel;
+	protected ByteBuffer          m_buffer;
+	protected byte[]              m_bytes;
+	protected int                 m_position;
+	protected int                 m_limit;
+
+	protected static final int m_buffer_size = 1 << 16;
+
+	/*
+	 * constructor, variables is the expected size of the model
+	 */
+	public ModelParser (int variables)
+	{
+		m_satisfiable   = false;
+		m_unsatisfiable = false;
+		m_model         = new Model (variables);
+
+		m_bytes  = new byte [m_buffer_size];
+		m_buffer = ByteBuffer.wrap (m_bytes);
+	}
+
+	public boolean isSatisfiable ()
+	{
+		return m_satisfiable;
+	}
+
+	public boolean isUnsatisfiable ()
+	{
+		return m_unsatisfiable;
+	}
+
+	public Model getModel ()
+	{
+		return m_model;
+	}
+
+	/*
+	 * parse competition format: lines starting with 'c', 's' or 'v'
+	 */
+	public void parseCompetitionOutput (ReadableByteChannel channel) throws IOException
+	{
+		startReading (channel);
+
+		int current_byte = nextByte ();
+
+		while (current_byte >= 0) {
+			switch (current_byte) {
+				case 's':
+					String status = readLine ().trim ();
+
+					if (status.equals ("SATISFIABLE")) {
+						m_satisfiable = true;
+					} else if (status.equals ("UNSATISFIABLE")) {
+						m_unsatisfiable = true;
+					}
+					break;
+				case 'v':
+					readLiterals (true);
+					break;
+				case '\n':
+					break;
+				default:
+					skipLine ();
+					break;
+			}
+
+			current_byte = nextByte ();
+		}
+	}
+
+	/*
+	 * parse result file of minisat: status line followed by the literals
+	 */
+	public void parseMiniSATResult (ReadableByteChannel channel) throws IOException
+	{
+		startReading (channel);
+
+		if (nextByte () < 0) return;
+		m_position --;
+
+		String status = readLine ().trim ();
+
+		if (status.equals ("SAT")) {
+			m_satisfiable = true;
+			readLiterals (false);
+		} else if (status.equals ("UNSAT")) {
+			m_unsatisfiable = true;
+		}
+	}
+
+	protected void startReading (ReadableByteChannel channel)
+	{
+		m_channel  = channel;
+		m_position = 0;
+		m_limit    = 0;
+	}
+
+	/*
+	 * return the next byte of the input, -1 at end of input
+	 */
+	protected final int nextByte () throws IOException
+	{
+		if (m_position == m_limit) {
+			m_buffer.clear ();
+
+			int read_bytes = 0;
+
+			while (read_bytes == 0) {
+				read_bytes = m_channel.read (m_buffer);
+			}
+
+			if (read_bytes < 0) return -1;
+
+			m_position = 0;
+			m_limit    = read_bytes;
+		}
+
+		return m_bytes[m_position ++];
+	}
+
+	/*
+	 * read literals until 0 is read
+	 * --> if stopAtEndOfLine is set, also stop at the end of the current line
+	 */
+	protected void readLiterals (boolean stopAtEndOfLine) throws IOException
+	{
+		int current_byte = nextByte ();
+
+		while (current_byte >= 0) {
+			if ((current_byte == '\n') && stopAtEndOfLine) return;
+
+			if ((current_byte == '-') || ((current_byte >= '0') && (current_byte <= '9'))) {
+				boolean negative = (current_byte == '-');
+				int     value    = 0;
+
+				if (negative) current_byte = nextByte ();
+
+				while ((current_byte >= '0') && (current_byte <= '9')) {
+					value = 10 * value + (current_byte - '0');
+					current_byte = nextByte ();
+				}
+
+				if (value == 0) {
+					if (stopAtEndOfLine && (current_byte != '\n')) skipLine ();
+					return;
+				}
+
+				m_model.setLiteral (negative ? -value : value);
+				continue;
+			}
+
+			current_byte = nextByte ();
+		}
+	}
+
+	/*
+	 * read the rest of the current line (only used for short status lines)
+	 */
+	protected String readLine () throws IOException
+	{
+		StringBuilder result = new StringBuilder ();
+
+		int current_byte = nextByte ();
+
+		while ((current_byte >= 0) && (current_byte != '\n')) {
+			result.append ((char) current_byte);
+			current_byte = nextByte ();
+		}
+
+		return result.toString ();
+	}
+
+	protected void skipLine () throws IOException
+	{
+		int current_byte = nextByte ();
+
+		while ((current_byte >= 0) && (current_byte != '\n')) {
+			current_byte = nextByte ();
+		}
+	}
+}
@@ -1,129 +1,87 @@
 package edgematching.cnf;
 
 import java.io.*;
+import java.nio.channels.*;
 import java.util.*;
 import java.lang.Math;
 
 public class PicoSAT
-	implements SATSolver
+	extends ExternalSATSolver
 {
 	protected String m_pico_sat_path;
-	protected boolean m_satisfiable;
-
-	protected TreeSet<Integer> m_solution;
 
 	public PicoSAT (String pathToBinary)
 	{
 		m_pico_sat_path = pathToBinary;
-		m_satisfiable   = false;
-
-		m_solution = new TreeSet<Integer> ();
 	}
 
-	public void solveSAT (SATSolvable problem)
+	/*
+	 * the formula is written to stdin and stderr is drained by separate threads,
+	 * while stdout is parsed by the current thread
+	 * --> the solver can start reading before the whole formula is written
+	 *  and never blocks on a full output pipe
+	 *
+	 * if formula is null, the clauses of problem are streamed to stdin while encoding
+	 */
+	protected SATResult runSolver (CNFFormula formula, SATSolvable problem, long deadline)
 	{
-		m_satisfiable = false;
-		m_solution.clear ();
+		String[] command_array = {m_pico_sat_path};
 
-		System.err.println ("encoding problem...");
-		CNFFormula formula = problem.encodeToSAT ();
+		try {
+			Process pico_sat_process = startProcess (command_array, deadline);
 
-		System.err.println ("solving...");
-		if (! solveFormula (formula)) return;
+			if (pico_sat_process == null) return notStarted ();
 
-		System.err.println ("checking solution...");
-		if (! m_satisfiable) return;
+			InputStream output_stream = pico_sat_process.getInputStream ();
 
-		System.err.println ("decoding solution...");
-		problem.decodeSolution (formula);
-	}
+			FormulaWriter input_writer;
+			int           variables;
 
-	public boolean getSatisfiable ()
-	{
-		return m_satisfiable;
-	}
+			if (formula != null) {
+				input_writer = new FormulaWriter ("picosat-stdin", formula, pico_sat_process.getOutputStream ());
+				variables    = formula.getAmountOfVariables ();
+			} else {
+				input_writer = new FormulaWriter ("picosat-stdin", problem, m_header_mode, pico_sat_process.getOutputStream ());
+				variables    = problem.getAmountOfSATVariables ();
+			}
 
-	protected boolean solveFormula (CNFFormula formula)
-	{
-		boolean result = false;
+			StreamCopier error_copier = new StreamCopier ("picosat-stderr", pico_sat_process.getErrorStream (), System.err);
 
-		String[] command_array = {m_pico_sat_path};
+			input_writer.start ();
+			error_copier.start ();
 
-		try {
-			Process pico_sat_process = Runtime.getRuntime ().exec (command_array);
+			ModelParser parser = new ModelParser (variables);
 
-			BufferedReader error_stream_reader  = new BufferedReader (new InputStreamReader (pico_sat_process.getErrorStream()));
-			BufferedReader output_stream_reader = new BufferedReader (new InputStreamReader (pico_sat_process.getInputStream()));
-			BufferedWriter input_stream_writer = new BufferedWriter (new OutputStreamWriter (pico_sat_process.getOutputStream()));
-			
-			input_stream_writer.write (formula.toDIMACS ());
-			input_stream_writer.flush ();
-			input_stream_writer.close ();
+			parser.parseCompetitionOutput (Channels.newChannel (output_stream));
 
-			String current_output_line = output_stream_reader.readLine ();
+			output_stream.close ();
 
-			while (current_output_line != null) {
-				parseOutputLine (current_output_line);
-				current_output_line = output_stream_reader.readLine ();
-			}
+			boolean written = input_writer.finish ();
 
-			String current_error_line  = error_stream_reader.readLine ();
+			error_copier.finish ();
 
-			while (current_error_line != null) {
-				System.err.println (current_error_line);
-				current_error_line = error_stream_reader.readLine ();
-			}
+			SATResult result = SATResult.unknown;
 
-			error_stream_reader.close ();
-			output_stream_reader.close ();
+			if (parser.isSatisfiable ()) {
+				result     = SATResult.sat;
+				m_solution = parser.getModel ();
+			} else if (parser.isUnsatisfiable ()) {
+				result = SATResult.unsat;
+			}
 
-			pico_sat_process.waitFor ();
+			result = finishProcess (result);
 
-			if (m_satisfiable) {
-				formula.setSolution (m_solution);
+			if ((result == SATResult.unknown) && (! written) && (! m_cancelled)) {
+				System.err.println ("Error writing formula to picosat...");
+				return SATResult.error;
 			}
 
-			result = true;
+			return result;
 		} catch (IOException exception) {
+			System.err.println ("Error running " + m_pico_sat_path + "...");
 		} catch (InterruptedException exception) {
 		}
 
-
-		return result;
-	}
-
-	protected boolean parseOutputLine (String line)
-	{
-		if (line.length () < 3) return false;
-
-		switch (line.charAt (0)) {
-			case 'c':
-				return true;
-			case 's':
-				if (line.substring (2).equals ("SATISFIABLE")) {
-					m_satisfiable = true;
-				}
-				return true;
-			case 'v':
-				line = line.substring (2);
-				parseVariables (line);
-				return true;
-		}
-
-		return false;
-	}
-
-	protected void parseVariables (String line)
-	{
-		Scanner literal_scanner = new Scanner (line);
-
-		while (literal_scanner.hasNextInt ()) {
-			int current_literal = literal_scanner.nextInt ();
-			if (current_literal != 0) {
-				m_solution.add (current_literal);
-			} else {
-				break;
-			}
-		}
+		return SATResult.error;
 	}
 }
@@ -0,0 +1,191 @@
+package edgematching.cnf;
+
+import java.util.*;
+
+/*
+ * portfolio of several external sat-solvers
+ * --> the problem is encoded once, all solvers are started at the same time
+ *  on the same formula, the first definitive answer (sat / unsat) wins
+ *  and all other solvers are killed
+ *
+ * the winners are counted per solver name, so a portfolio can be tuned
+ * (see getWins)
+ */
+public class PortfolioSolver
+	implements SATSolver
+{
+	protected ArrayList<String>            m_solver_names;
+	protected ArrayList<ExternalSATSolver> m_solvers;
+
+	protected ArrayList<PortfolioWorker> m_workers;
+	protected PortfolioWorker            m_winner;
+	protected SATResult                  m_result;
+	protected volatile boolean           m_cancelled;
+
+	/*
+	 * number of won runs per solver name
+	 */
+	protected TreeMap<String,Integer> m_wins;
+
+	public PortfolioSolver ()
+	{
+		m_solver_names = new ArrayList<String> ();
+		m_solvers      = new ArrayList<ExternalSATSolver> ();
+		m_workers      = new ArrayList<PortfolioWorker> ();
+		m_winner       = null;
+		m_result       = SATResult.unknown;
+		m_cancelled    = false;
+		m_wins         = new TreeMap<String,Integer> ();
+	}
+
+	/*
+	 * add a solver under a name (used for the statistics)
+	 */
+	public void addSolver (String name, ExternalSATSolver solver)
+	{
+		m_solver_names.add (name);
+		m_solvers.add (solver);
+		m_wins.put (name, 0);
+	}
+
+	public void solveSAT (SATSolvable problem)
+	{
+		solveSAT (problem, 0);
+	}
+
+	public SATResult solveSAT (SATSolvable problem, long deadline)
+	{
+		m_result    = SATResult.unknown;
+		m_cancelled = false;
+
+		System.err.println ("encoding problem...");
+		CNFFormula formula = problem.encodeToSAT ();
+
+		System.err.println ("solving with " + m_solvers.size () + " solvers...");
+		m_result = solveFormula (formula, deadline);
+
+		System.err.println ("checking solution...");
+		if (m_result != SATResult.sat) return m_result;
+
+		formula.setSolution (m_winner.getSolver ().getModel ());
+
+		System.err.println ("decoding solution...");
+		problem.decodeSolution (formula);
+
+		return m_result;
+	}
+
+	/*
+	 * run all solvers on the formula and wait for all of them to stop
+	 */
+	protected SATResult solveFormula (CNFFormula formula, long deadline)
+	{
+		synchronized (this) {
+			m_winner  = null;
+			m_workers = new ArrayList<PortfolioWorker> ();
+
+			for (int i_solver = 0; i_solver < m_solvers.size (); i_solver ++) {
+				ExternalSATSolver solver = m_solvers.get (i_solver);
+
+				solver.prepareRun ();
+
+				m_workers.add (new PortfolioWorker (this, m_solver_names.get (i_solver), solver, formula, deadline));
+			}
+
+			if (m_cancelled) return SATResult.unknown;
+
+			for (PortfolioWorker i_worker : m_workers) {
+				i_worker.start ();
+			}
+		}
+
+		try {
+			for (PortfolioWorker i_worker : m_workers) {
+				i_worker.join ();
+			}
+		} catch (InterruptedException exception) {
+			cancel ();
+			return SATResult.unknown;
+		}
+
+		if (m_winner != null) {
+			m_wins.put (m_winner.getSolverName (), m_wins.get (m_winner.getSolverName ()) + 1);
+
+			System.err.println ("portfolio: " + m_winner.getSolverName () + " won with " + m_winner.getResult () + " after " + m_winner.getTime () + " ms");
+			printWins ();
+
+			return m_winner.getResult ();
+		}
+
+		// no definitive answer: timeout if any solver timed out, error only if all failed
+		boolean all_errors = true;
+
+		for (PortfolioWorker i_worker : m_workers) {
+			if (i_worker.getResult () == SATResult.timeout) return SATResult.timeout;
+			if (i_worker.getResult () != SATResult.error)   all_errors = false;
+		}
+
+		return (all_errors && (! m_workers.isEmpty ()) ? SATResult.error : SATResult.unknown);
+	}
+
+	/*
+	 * called by the workers --> the first definitive answer cancels all other solvers
+	 */
+	protected synchronized void reportResult (PortfolioWorker worker)
+	{
+		if (m_winner != null) return;
+
+		if ((worker.getResult () != SATResult.sat) && (worker.getResult () != SATResult.unsat)) return;
+
+		m_winner = worker;
+
+		for (PortfolioWorker i_worker : m_workers) {
+			if (i_worker != worker) i_worker.getSolver ().cancel ();
+		}
+	}
+
+	public boolean getSatisfiable ()
+	{
+		return (m_result == SATResult.sat);
+	}
+
+	public SATResult getResult ()
+	{
+		return m_result;
+	}
+
+	public void cancel ()
+	{
+		synchronized (this) {
+			m_cancelled = true;
+
+			for (PortfolioWorker i_worker : m_workers) {
+				i_worker.getSolver ().cancel ();
+			}
+		}
+	}
+
+	/*
+	 * name of the solver which won the last run, null if no solver gave an answer
+	 */
+	public String getWinner ()
+	{
+		return (m_winner == null ? null : m_winner.getSolverName ());
+	}
+
+	public Map<String,Integer> getWins ()
+	{
+		return m_wins;
+	}
+
+	protected void printWins ()
+	{
+		StringBuilder result = new StringBuilder ("portfolio wins:");
+
+		for (Map.Entry<String,Integer> i_entry : m_wins.entrySet ()) {
+			result.append (' ').append (i_entry.getKey ()).append ('=').append (i_entry.getValue ());
+		}
+
+		System.err.println (result);
+	}
+}
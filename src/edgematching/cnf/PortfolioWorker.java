@@ -0,0 +1,66 @@
+package edgematching.cnf;
+
+/*
+ * thread running one solver of a portfolio on the shared formula
+ * --> reports its result back to the portfolio
+ */
+public class PortfolioWorker
+	extends Thread
+{
+	protected PortfolioSolver   m_portfolio;
+	protected String            m_solver_name;
+	protected ExternalSATSolver m_solver;
+	protected CNFFormula        m_formula;
+	protected long              m_deadline;
+
+	protected SATResult m_result;
+	protected long      m_time;
+
+	public PortfolioWorker (PortfolioSolver portfolio, String solverName, ExternalSATSolver solver, CNFFormula formula, long deadline)
+	{
+		super ("portfolio-" + solverName);
+
+		m_portfolio   = portfolio;
+		m_solver_name = solverName;
+		m_solver      = solver;
+		m_formula     = formula;
+		m_deadline    = deadline;
+		m_result      = SATResult.unknown;
+		m_time        = 0;
+
+		setDaemon (true);
+	}
+
+	public void run ()
+	{
+		long start = System.currentTimeMillis ();
+
+		m_result = m_solver.solveFormula (m_formula, m_deadline);
+		m_time   = System.currentTimeMillis () - start;
+
+		m_portfolio.reportResult (this);
+	}
+
+	public String getSolverName ()
+	{
+		return m_solver_name;
+	}
+
+	public ExternalSATSolver getSolver ()
+	{
+		return m_solver;
+	}
+
+	public SATResult getResult ()
+	{
+		return m_result;
+	}
+
+	/*
+	 * wall-clock time of the run in milliseconds
+	 */
+	public long getTime ()
+	{
+		return m_time;
+	}
+}
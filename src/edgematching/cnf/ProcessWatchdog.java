@@ -0,0 +1,107 @@
+package edgematching.cnf;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/*
+ * thread watching a solver process
+ * --> kills the process and all of its descendants,
+ *  if the deadline is reached or the cpu-limit is exceeded
+ */
+public class ProcessWatchdog
+	extends Thread
+{
+	protected Process m_process;
+
+	/*
+	 * m_deadline: System.currentTimeMillis () at which the process is killed, 0 = none
+	 * m_cpu_limit: cpu-time of the process tree in milliseconds, 0 = none
+	 */
+	protected long m_deadline;
+	protected long m_cpu_limit;
+
+	protected volatile boolean m_timed_out;
+
+	protected static final long m_poll_interval = 50;
+
+	public ProcessWatchdog (String name, Process process, long deadline, long cpuLimit)
+	{
+		super (name);
+
+		m_process   = process;
+		m_deadline  = deadline;
+		m_cpu_limit = cpuLimit;
+		m_timed_out = false;
+
+		setDaemon (true);
+	}
+
+	public void run ()
+	{
+		try {
+			while (m_process.isAlive ()) {
+				if (((m_deadline > 0) && (System.currentTimeMillis () >= m_deadline)) ||
+				    ((m_cpu_limit > 0) && (getCPUTime () >= m_cpu_limit))) {
+					m_timed_out = true;
+					killProcessTree (m_process);
+					return;
+				}
+
+				long wait_time = m_poll_interval;
+
+				if (m_deadline > 0) {
+					wait_time = Math.max (1, Math.min (wait_time, m_deadline - System.currentTimeMillis ()));
+				}
+
+				m_process.waitFor (wait_time, TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException exception) {
+		}
+	}
+
+	/*
+	 * true, if the process was killed because of deadline or cpu-limit
+	 */
+	public boolean hasTimedOut ()
+	{
+		return m_timed_out;
+	}
+
+	/*
+	 * cpu-time of the process and its descendants in milliseconds
+	 * (0 if the platform does not report it)
+	 */
+	protected long getCPUTime ()
+	{
+		long result = cpuTimeOf (m_process.toHandle ());
+
+		for (ProcessHandle i_handle : (Iterable<ProcessHandle>) m_process.descendants ()::iterator) {
+			result += cpuTimeOf (i_handle);
+		}
+
+		return result;
+	}
+
+	protected static long cpuTimeOf (ProcessHandle handle)
+	{
+		return handle.info ().totalCpuDuration ().orElse (Duration.ZERO).toMillis ();
+	}
+
+	/*
+	 * kill a process with all its descendants (e.g. solvers started by a wrapper script)
+	 * --> the root is killed first, so it can't start new children
+	 *  when it notices the death of the old ones
+	 */
+	public static void killProcessTree (Process process)
+	{
+		List<ProcessHandle> descendants = process.descendants ().collect (Collectors.toList ());
+
+		process.destroyForcibly ();
+
+		for (ProcessHandle i_handle : descendants) {
+			i_handle.destroyForcibly ();
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package edgematching.cnf;
+
+/*
+ * result of a run of a sat-solver
+ *
+ * sat / unsat: definitive answer of the solver
+ * unknown: solver gave no answer (e.g. minisat INDET or run was cancelled)
+ * timeout: deadline or cpu-limit reached, the solver was killed
+ * error: solver could not be run or its output could not be read
+ */
+public enum SATResult
+{
+	sat, unsat, unknown, timeout, error
+}
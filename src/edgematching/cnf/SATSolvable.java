@@ -8,4 +8,28 @@ public interface SATSolvable
 {
 	CNFFormula encodeToSAT ();
 	void decodeSolution (CNFFormula cnfformula);
+
+	/*
+	 * streaming interface:
+	 * --> clauses are pushed into sink, no CNFFormula is built
+	 *  (has to create the same clauses on every call)
+	 * --> getAmountOfSATVariables has to be known before encoding
+	 */
+	void encodeToSAT (ClauseSink sink);
+	int getAmountOfSATVariables ();
+	String getSATComment ();
+	void decodeSolution (Model solution);
+
+	/*
+	 * placement variables (piece on place) of the solution a model is decoded to
+	 * --> two models with the same placements are the same solution
+	 *  (see SolutionEnumerator)
+	 */
+	int[] getPlacementVariables (Model solution);
+
+	/*
+	 * false if the problem cannot be encoded
+	 * (e.g. it needs more variables than DIMACS allows)
+	 */
+	boolean isEncodable ();
 }
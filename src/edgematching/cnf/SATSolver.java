@@ -7,4 +7,17 @@ public interface SATSolver
 {
 	void solveSAT (SATSolvable problem);
 	boolean getSatisfiable ();
+
+	/*
+	 * solve with a deadline (System.currentTimeMillis () based, 0 = none)
+	 * --> the solver is killed at the deadline and timeout is returned
+	 */
+	SATResult solveSAT (SATSolvable problem, long deadline);
+	SATResult getResult ();
+
+	/*
+	 * cancel a running solveSAT from another thread
+	 * --> kills the external solver process (including its children)
+	 */
+	void cancel ();
 }
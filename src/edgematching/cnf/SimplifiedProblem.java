@@ -0,0 +1,95 @@
+package edgematching.cnf;
+
+/*
+ * decorator simplifying the formula of a problem (see CNFSimplifier)
+ * --> the solvers get the simplified formula,
+ *  models are extended to the original formula before the problem decodes them
+ *
+ * the simplification keeps satisfiability, but not the amount of models
+ * (pure literals), so solutions must not be enumerated with it
+ */
+public class SimplifiedProblem
+	implements SATSolvable
+{
+	protected SATSolvable   m_problem;
+	protected CNFSimplifier m_simplifier;
+
+	/*
+	 * simplified formula, created once and reused for every encodeToSAT
+	 */
+	protected CNFFormula m_formula;
+
+	public SimplifiedProblem (SATSolvable problem)
+	{
+		m_problem    = problem;
+		m_simplifier = new CNFSimplifier ();
+		m_formula    = null;
+	}
+
+	public CNFSimplifier getSimplifier ()
+	{
+		return m_simplifier;
+	}
+
+	public CNFFormula encodeToSAT ()
+	{
+		if (m_formula == null) {
+			CNFFormula formula = m_problem.encodeToSAT ();
+
+			System.err.println ("simplifying formula...");
+			m_formula = m_simplifier.simplify (formula);
+		}
+
+		return m_formula;
+	}
+
+	/*
+	 * the formula has to be simplified as a whole,
+	 * so the clauses are only passed to sink afterwards
+	 */
+	public void encodeToSAT (ClauseSink sink)
+	{
+		int[] clause_buffer = new int [16];
+
+		for (ClauseIterator i_clause = encodeToSAT ().clauseIterator (); i_clause.next (); ) {
+			int size = i_clause.getSize ();
+
+			if (clause_buffer.length < size) clause_buffer = new int [2 * size];
+
+			System.arraycopy (i_clause.getLiterals (), i_clause.getStart (), clause_buffer, 0, size);
+			sink.addClause (clause_buffer, size);
+		}
+	}
+
+	public void decodeSolution (CNFFormula formula)
+	{
+		if (! formula.isSolved ()) return;
+
+		decodeSolution (formula.getSolution ());
+	}
+
+	public void decodeSolution (Model solution)
+	{
+		m_problem.decodeSolution (m_simplifier.extendModel (solution));
+	}
+
+	public int getAmountOfSATVariables ()
+	{
+		return m_problem.getAmountOfSATVariables ();
+	}
+
+	public String getSATComment ()
+	{
+		return m_problem.getSATComment ();
+	}
+
+	public int[] getPlacementVariables (Model solution)
+	{
+		return m_problem.getPlacementVariables (m_simplifier.extendModel (solution));
+	}
+
+	public boolean isEncodable ()
+	{
+		return m_problem.isEncodable ();
+	}
+}
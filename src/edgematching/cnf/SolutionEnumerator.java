@@ -0,0 +1,141 @@
+package edgematching.cnf;
+
+import java.util.*;
+
+/*
+ * enumerates all solutions of a problem with an incremental sat-solver
+ * --> after each model a blocking clause over the placement variables is added
+ *  (the negation of the placements the model is decoded to) and the solver is called again,
+ *  so learnt clauses are reused and every solution is found exactly once
+ *
+ * auxiliary variables (colors of diamonds, order encoding, ...) are not blocked,
+ * they are determined by the placements up to symmetric pieces
+ */
+public class SolutionEnumerator
+{
+	protected SATSolvable          m_problem;
+	protected IncrementalSATSolver m_solver;
+
+	/*
+	 * models found so far (at most m_stored_models_limit are kept)
+	 */
+	protected ArrayList<Model> m_models;
+	protected int              m_stored_models_limit;
+
+	protected long      m_solutions_count;
+	protected SATResult m_result;
+	protected long      m_time;
+
+	public SolutionEnumerator (SATSolvable problem, IncrementalSATSolver solver)
+	{
+		m_problem = problem;
+		m_solver  = solver;
+
+		m_models              = new ArrayList<Model> ();
+		m_stored_models_limit = 2;
+
+		m_solutions_count = 0;
+		m_result          = SATResult.unknown;
+		m_time            = 0;
+	}
+
+	/*
+	 * amount of models kept for getModels (default 2, enough to show non-uniqueness)
+	 */
+	public void setStoredModelsLimit (int limit)
+	{
+		m_stored_models_limit = limit;
+	}
+
+	/*
+	 * enumerate up to limit solutions (0 = all), deadline as in SATSolver (0 = none)
+	 * --> the problem is encoded into the solver, so it has to be empty before
+	 *
+	 * result:
+	 *  unsat   --> all solutions were found (none if the count is 0)
+	 *  sat     --> the limit was reached, there may be more solutions
+	 *  timeout / unknown --> stopped by deadline / cancel
+	 */
+	public SATResult enumerate (long limit, long deadline)
+	{
+		long start = System.currentTimeMillis ();
+
+		m_models.clear ();
+		m_solutions_count = 0;
+
+		System.err.println ("encoding problem...");
+		m_problem.encodeToSAT (m_solver);
+
+		System.err.println ("enumerating solutions...");
+
+		while (true) {
+			m_result = m_solver.solve (deadline);
+
+			if (m_result != SATResult.sat) break;
+
+			Model model = m_solver.getModel ();
+
+			m_solutions_count ++;
+
+			if (m_models.size () < m_stored_models_limit) m_models.add (new Model (model));
+
+			if ((limit > 0) && (m_solutions_count >= limit)) break;
+
+			// block the placements of this model
+			int[] blocking_clause = m_problem.getPlacementVariables (model);
+
+			for (int i = 0; i < blocking_clause.length; i++) {
+				blocking_clause[i] = - blocking_clause[i];
+			}
+
+			if (blocking_clause.length == 0) {
+				// no placements at all --> there is only this solution
+				m_result = SATResult.unsat;
+				break;
+			}
+
+			m_solver.addClause (blocking_clause, blocking_clause.length);
+		}
+
+		m_time = System.currentTimeMillis () - start;
+
+		return m_result;
+	}
+
+	public long getAmountOfSolutions ()
+	{
+		return m_solutions_count;
+	}
+
+	/*
+	 * true if enumerate stopped because no further solution exists
+	 */
+	public boolean isComplete ()
+	{
+		return (m_result == SATResult.unsat);
+	}
+
+	public ArrayList<Model> getModels ()
+	{
+		return m_models;
+	}
+
+	/*
+	 * time of the last enumeration in milliseconds (including encoding)
+	 */
+	public long getTime ()
+	{
+		return m_time;
+	}
+
+	public double getSolutionsPerSecond ()
+	{
+		return (m_time > 0 ? 1000.0 * m_solutions_count / m_time : 0.0);
+	}
+
+	public void printStatistics ()
+	{
+		System.err.println ("enumeration: " + m_solutions_count + " solutions" + (isComplete () ? " (all)" : " (" + m_result + ")") +
+				" in " + m_time + " ms, " + String.format ("%.1f", getSolutionsPerSecond ()) + " solutions/s");
+	}
+}
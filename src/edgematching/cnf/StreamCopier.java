@@ -0,0 +1,64 @@
+package edgematching.cnf;
+
+import java.io.*;
+
+/*
+ * thread copying everything from an input stream to an output stream
+ * --> used to drain stdout / stderr of solver processes,
+ *  so the solver never blocks on a full pipe
+ */
+public class StreamCopier
+	extends Thread
+{
+	protected InputStream  m_input;
+	protected OutputStream m_output;
+
+	protected IOException  m_exception;
+
+	/*
+	 * output may be null --> input is just drained
+	 */
+	public StreamCopier (String name, InputStream input, OutputStream output)
+	{
+		super (name);
+
+		m_input     = input;
+		m_output    = output;
+		m_exception = null;
+
+		setDaemon (true);
+	}
+
+	public void run ()
+	{
+		byte[] buffer = new byte [1 << 13];
+
+		try {
+			int read_bytes = m_input.read (buffer);
+
+			while (read_bytes >= 0) {
+				if (m_output != null) {
+					m_output.write (buffer, 0, read_bytes);
+					m_output.flush ();
+				}
+
+				read_bytes = m_input.read (buffer);
+			}
+
+			m_input.close ();
+		} catch (IOException exception) {
+			m_exception = exception;
+		}
+	}
+
+	/*
+	 * wait for the end of the input stream,
+	 * return false if copying failed
+	 */
+	public boolean finish () throws InterruptedException
+	{
+		join ();
+
+		return (m_exception == null);
+	}
+}
@@ -0,0 +1,65 @@
+package edgematching.cnf;
+
+/*
+ * allocates ranges of sat-variables {1, 2, ...} for an encoding
+ * --> sizes are computed with long, so a range that does not fit below the
+ *  DIMACS limit (literals are signed 32 bit integers, variables <= 2^31 - 1)
+ *  is detected instead of wrapping around
+ *
+ * a failed allocation returns 0 and marks the allocator as overflowed,
+ * the encoding should then be rejected (see hasOverflowed)
+ */
+public class VariableAllocator
+{
+	public static final long m_max_variable = Integer.MAX_VALUE;
+
+	/*
+	 * m_next_variable: first variable of the next range
+	 * m_requested_variables: all variables asked for, including failed allocations
+	 */
+	protected long m_next_variable;
+	protected long m_requested_variables;
+
+	public VariableAllocator ()
+	{
+		m_next_variable       = 1;
+		m_requested_variables = 0;
+	}
+
+	/*
+	 * allocate amount consecutive variables, returns the first of them
+	 * --> 0 if they do not fit (variables are never 0)
+	 */
+	public int allocate (long amount)
+	{
+		if (amount < 0) throw new IllegalArgumentException ("negative amount of variables: " + amount);
+
+		m_requested_variables += amount;
+
+		if (m_requested_variables > m_max_variable) return 0;
+
+		long result = m_next_variable;
+
+		m_next_variable += amount;
+
+		return (int) result;
+	}
+
+	/*
+	 * amount of allocated variables (the variables are {1, ..., result})
+	 */
+	public int getAmountOfVariables ()
+	{
+		return (int) (m_next_variable - 1);
+	}
+
+	public long getAmountOfRequestedVariables ()
+	{
+		return m_requested_variables;
+	}
+
+	public boolean hasOverflowed ()
+	{
+		return (m_requested_variables > m_max_variable);
+	}
+}
@@ -0,0 +1,15 @@
+package edgematching.problem;
+
+/*
+ * encoding of the color of a diamond (see ProblemEncodingSimple.setColorEncoding)
+ *
+ * direct: one variable y_kc per diamond and color, "exactly one" of them per diamond
+ * log:    the index of the color in ceil (log2 (colors)) bits per diamond,
+ *         codes above the last color are forbidden --> no "exactly one" needed,
+ *         but a clause with k colors as positive literals becomes bits^k clauses
+ *         (e.g. the rotation clauses of the center pieces), so it only pays off with few colors
+ */
+public enum ColorEncoding
+{
+	direct, log
+}
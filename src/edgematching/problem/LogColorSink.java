@@ -0,0 +1,216 @@
+package edgematching.problem;
+
+import java.util.*;
+import edgematching.cnf.*;
+
+/*
+ * writes the clauses of an encoding with direct color variables y_kc
+ * in the log encoding of the colors to another sink
+ *
+ * y_kc is virtual: it stands for "the bits of diamond k are the index c", i.e. a conjunction
+ * --> not y_kc becomes the disjunction of the negated bits,
+ *  a clause with y_kc is split into one clause per bit (all combinations for several y)
+ *
+ * the virtual variables of a range are start + diamond * colors + color,
+ * the bits start + diamond * bits + bit; other literals are written unchanged
+ */
+public class LogColorSink
+	implements ClauseSink
+{
+	protected ClauseSink m_sink;
+
+	/*
+	 * ranges: 0 = border diamonds, 1 = center diamonds
+	 */
+	protected int[] m_virtual_starts;
+	protected int[] m_virtual_ends;
+	protected int[] m_colors_counts;
+	protected int[] m_bits_starts;
+	protected int[] m_bits_counts;
+
+	/*
+	 * clause being translated: fixed literals and the bits of each positive y_kc
+	 */
+	protected int[]   m_fixed_literals;
+	protected int     m_fixed_length;
+	protected int[][] m_groups;
+	protected int     m_groups_count;
+	protected int[]   m_clause_buffer;
+	protected int[]   m_single_buffer;
+
+	public LogColorSink (ClauseSink sink, int[] virtualStarts, int[] colorsCounts, int[] diamondsCounts, int[] bitsStarts, int[] bitsCounts)
+	{
+		m_sink           = sink;
+		m_virtual_starts = virtualStarts;
+		m_colors_counts  = colorsCounts;
+		m_bits_starts    = bitsStarts;
+		m_bits_counts    = bitsCounts;
+
+		m_virtual_ends = new int [virtualStarts.length];
+
+		for (int i_range = 0; i_range < virtualStarts.length; i_range ++) {
+			m_virtual_ends[i_range] = virtualStarts[i_range] + diamondsCounts[i_range] * colorsCounts[i_range];
+		}
+
+		m_fixed_literals = new int [16];
+		m_groups         = new int [4][];
+		m_clause_buffer  = new int [16];
+		m_single_buffer  = new int [3];
+	}
+
+	/*
+	 * ===============================================================================
+	 * ClauseSink interface
+	 * ===============================================================================
+	 */
+
+	public void addUnit (int literal)
+	{
+		if (getRange (literal) < 0) {
+			m_sink.addUnit (literal);
+			return;
+		}
+
+		m_single_buffer[0] = literal;
+		addClause (m_single_buffer, 1);
+	}
+
+	public void addBinary (int literal1, int literal2)
+	{
+		if ((getRange (literal1) < 0) && (getRange (literal2) < 0)) {
+			m_sink.addBinary (literal1, literal2);
+			return;
+		}
+
+		m_single_buffer[0] = literal1;
+		m_single_buffer[1] = literal2;
+		addClause (m_single_buffer, 2);
+	}
+
+	public void addTernary (int literal1, int literal2, int literal3)
+	{
+		if ((getRange (literal1) < 0) && (getRange (literal2) < 0) && (getRange (literal3) < 0)) {
+			m_sink.addTernary (literal1, literal2, literal3);
+			return;
+		}
+
+		m_single_buffer[0] = literal1;
+		m_single_buffer[1] = literal2;
+		m_single_buffer[2] = literal3;
+		addClause (m_single_buffer, 3);
+	}
+
+	public void addClause (int[] literals, int length)
+	{
+		m_fixed_length = 0;
+		m_groups_count = 0;
+
+		for (int i = 0; i < length; i++) {
+			int literal = literals[i];
+			int range   = getRange (literal);
+
+			if (range < 0) {
+				addFixedLiteral (literal);
+				continue;
+			}
+
+			int variable = Math.abs (literal) - m_virtual_starts[range];
+			int diamond  = variable / m_colors_counts[range];
+			int color    = variable % m_colors_counts[range];
+			int bits     = m_bits_counts[range];
+			int first    = m_bits_starts[range] + diamond * bits;
+
+			if (literal < 0) {
+				// not (all bits equal color) --> one of them differs
+				for (int i_bit = 0; i_bit < bits; i_bit ++) {
+					addFixedLiteral (((color >> i_bit) & 1) != 0 ? - (first + i_bit) : (first + i_bit));
+				}
+			} else {
+				// a single color needs no bits --> y_kc is true, so is the clause
+				if (bits == 0) return;
+
+				int[] group = new int [bits];
+
+				for (int i_bit = 0; i_bit < bits; i_bit ++) {
+					group[i_bit] = (((color >> i_bit) & 1) != 0 ? (first + i_bit) : - (first + i_bit));
+				}
+
+				if (m_groups_count == m_groups.length) m_groups = Arrays.copyOf (m_groups, 2 * m_groups.length);
+
+				m_groups[m_groups_count ++] = group;
+			}
+		}
+
+		writeCombinations (0, 0);
+	}
+
+	/*
+	 * ===============================================================================
+	 * helper functions ...
+	 * ===============================================================================
+	 */
+
+	/*
+	 * range of a virtual literal, -1 for other literals
+	 */
+	protected int getRange (int literal)
+	{
+		int variable = Math.abs (literal);
+
+		for (int i_range = 0; i_range < m_virtual_starts.length; i_range ++) {
+			if ((variable >= m_virtual_starts[i_range]) && (variable < m_virtual_ends[i_range])) return i_range;
+		}
+
+		return -1;
+	}
+
+	protected void addFixedLiteral (int literal)
+	{
+		if (m_fixed_length == m_fixed_literals.length) m_fixed_literals = Arrays.copyOf (m_fixed_literals, 2 * m_fixed_length);
+
+		m_fixed_literals[m_fixed_length ++] = literal;
+	}
+
+	/*
+	 * one bit of each group from group on, chosen bits in m_clause_buffer[m_fixed_length ...]
+	 */
+	protected void writeCombinations (int group, int chosen)
+	{
+		if (group == m_groups_count) {
+			writeClause (m_fixed_length + chosen);
+			return;
+		}
+
+		for (int i_literal : m_groups[group]) {
+			if (m_clause_buffer.length <= m_fixed_length + chosen) m_clause_buffer = Arrays.copyOf (m_clause_buffer, 2 * (m_fixed_length + chosen + 1));
+
+			m_clause_buffer[m_fixed_length + chosen] = i_literal;
+
+			writeCombinations (group + 1, chosen + 1);
+		}
+	}
+
+	/*
+	 * fixed literals and the chosen bits, without duplicates and tautologies
+	 */
+	protected void writeClause (int length)
+	{
+		int[] result        = new int [length];
+		int   result_length = 0;
+
+		for (int i = 0; i < length; i++) {
+			int literal = (i < m_fixed_length ? m_fixed_literals[i] : m_clause_buffer[i]);
+
+			boolean duplicate = false;
+
+			for (int j = 0; j < result_length; j++) {
+				if (result[j] == - literal) return;
+				if (result[j] == literal) duplicate = true;
+			}
+
+			if (! duplicate) result[result_length ++] = literal;
+		}
+
+		m_sink.addClause (result, result_length);
+	}
+}
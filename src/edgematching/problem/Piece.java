@@ -12,10 +12,11 @@ public class Piece
 	 */
 	public static final int getStringLineCount = 7;
 
-	/* 
-	 * colors of the piece clockwise stored in this list
+	/*
+	 * colors of the piece clockwise, packed into a long (16 bits each, color i in bits 16 i, ..., 16 i + 15)
+	 * --> one entry for each rotation, m_rotated_colors[0] is the piece as given
 	 */
-	protected ArrayList<Integer> m_colors;
+	protected long[] m_rotated_colors;
 
 	/* 
 	 * rotation of piece (in {0,1,2,3}) in 90 degree steps clockwise
@@ -25,19 +26,29 @@ public class Piece
 
 	protected int m_hash_code;
 
+	/*
+	 * classification and its colors (see getClassification), computed with the colors
+	 */
+	protected int   m_classification;
+	protected int[] m_classification_colors;
+
+	/*
+	 * amount of different colors of each classification
+	 */
+	protected static final int[] m_classification_colors_counts = {0, 1, 2, 2, 2, 3, 3, 4};
+
 	/*
 	 * constructor with all 4 colors given
 	 * --> are inserted directly
 	 */
 	public Piece (int color1, int color2, int color3, int color4)
 	{
-		m_colors = new ArrayList<Integer> (4);
+		m_rotated_colors = new long [4];
 		m_rotation = 0;
 
-		m_colors.add (0, color1);
-		m_colors.add (1, color2);
-		m_colors.add (2, color3);
-		m_colors.add (3, color4);
+		m_classification_colors = new int [4];
+
+		setColors (pack (color1, color2, color3, color4));
 
 		m_hash_code = color1 + color2 + color3 + color4;
 	}
@@ -57,8 +68,9 @@ public class Piece
 
 	public void setColor (int index, int color)
 	{
-		int old_color = m_colors.get ((index + 4 - m_rotation) % 4);
-		m_colors.set((index + 4 - m_rotation) % 4, color);
+		int old_color = getColor (index);
+
+		setColors (setColor (m_rotated_colors[0], (index + 4 - m_rotation) % 4, color));
 
 		m_hash_code -= old_color;
 		m_hash_code += color;
@@ -68,7 +80,15 @@ public class Piece
 	 */
 	public int getColor (int index)
 	{
-		return m_colors.get((index + 4 - m_rotation) % 4);
+		return getColor (m_rotated_colors[m_rotation], index);
+	}
+
+	/*
+	 * packed colors of the piece as given (rotation 0)
+	 */
+	public long getColors ()
+	{
+		return m_rotated_colors[0];
 	}
 
 	/*
@@ -76,7 +96,7 @@ public class Piece
 	 */
 	public void removeAllColorsFrom (Collection<Integer> colorCollection)
 	{
-		colorCollection.removeAll (m_colors);
+		colorCollection.removeAll (getColorList ());
 	}
 
 	/*
@@ -84,7 +104,7 @@ public class Piece
 	 */
 	public void insertAllColors (Collection<Integer> colorCollection)
 	{
-		colorCollection.addAll (m_colors);
+		colorCollection.addAll (getColorList ());
 	}
 
 	/*
@@ -92,10 +112,12 @@ public class Piece
 	 */
 	public void insertBorderColors (Set<Integer> borderColorSet)
 	{
+		long colors = m_rotated_colors[0];
+
 		for (int i = 0; i < 4; i++) {
-			if (m_colors.get (i) == 0) {
-				int leftColor  = m_colors.get ((i+3)%4);
-				int rightColor = m_colors.get ((i+1)%4);
+			if (getColor (colors, i) == 0) {
+				int leftColor  = getColor (colors, (i+3)%4);
+				int rightColor = getColor (colors, (i+1)%4);
 
 				if (leftColor  != 0) borderColorSet.add (leftColor);
 				if (rightColor != 0) borderColorSet.add (rightColor);
@@ -108,13 +130,7 @@ public class Piece
 	 */
 	public int getBorderColorLeft ()
 	{
-		for (int i = 0; i < 4; i++) {
-			if ((m_colors.get (i) != 0) && (m_colors.get ((i + 1) % 4) == 0)) {
-				return (m_colors.get (i));
-			}
-		}
-
-		return -1;
+		return getBorderColorLeft (m_rotated_colors[0]);
 	}
 
 	/*
@@ -122,13 +138,7 @@ public class Piece
 	 */
 	public int getBorderColorRight ()
 	{
-		for (int i = 0; i < 4; i++) {
-			if ((m_colors.get (i) == 0) && (m_colors.get ((i + 1) % 4) != 0)) {
-				return (m_colors.get ((i + 1) % 4));
-			}
-		}
-
-		return -1;
+		return getBorderColorRight (m_rotated_colors[0]);
 	}
 
 	/*
@@ -136,13 +146,7 @@ public class Piece
 	 */
 	public int getBorderColorBottem ()
 	{
-		for (int i = 0; i < 4; i++) {
-			if (m_colors.get (i) == 0) {
-				return (m_colors.get ((i + 2) % 4));
-			}
-		}
-
-		return -1;
+		return getBorderColorBottem (m_rotated_colors[0]);
 	}
 
 	/*
@@ -153,8 +157,8 @@ public class Piece
 	{
 		int result = 0;
 
-		for (Integer i_color : m_colors) {
-			if (i_color == color) result++;
+		for (int i = 0; i < 4; i++) {
+			if (getColor (m_rotated_colors[0], i) == color) result++;
 		}
 
 		return result;
@@ -166,100 +170,38 @@ public class Piece
 	 */
 	public int getClassification (ArrayList<Integer> colors)
 	{
-		int result = 0;
+		int result = getClassification ();
 
 		colors.clear ();
 
-		int cl1 = m_colors.get (0);
-		int cl2 = m_colors.get (1);
-		int cl3 = m_colors.get (2);
-		int cl4 = m_colors.get (3);
-
-		if (cl1 == cl2) { //1,2,3,5 - 1=2
-			colors.add (0, cl1);
-			if (cl1 == cl3) { //1,2 - 1=2=3
-				if (cl1 == cl4) { //1 - 1=2=3=4
-					result = 1;
-				} else {          //2 - 1=2=3!=4
-					colors.add (1, cl4);
-					result = 2;
-				}
-			} else {          //2,3,5 - 1=2!=3
-				colors.add (1, cl3);
-				if (cl3 == cl4) { //3 - 1=2!=3=4
-					result = 3;
-				} else {          //2,5 - 1=2!=3, 3!=4
-					if (cl1 == cl4) { //2 - 1=2=4!=3
-						result = 2;
-					} else {          //5 - 1=2!=3, 3!=4, 1!=4
-						colors.add (2, cl4);
-						result = 5;
-					}
-				}
-			}
-		} else {          //2,3,4,5,6,7 - 1!=2
-			if (cl1 == cl3) { //2,4,6 - 1=3!=2
-				colors.add (0, cl1);
-				colors.add (1, cl2);
-				if (cl1 == cl4) { //2 - 1=3=4!=2
-					result = 2;
-				} else {          //4,6 - 1=3, 1!=2, 1!=4
-					if (cl2 == cl4) { //4 - 1=3!=2=4
-						result = 4;
-					} else {          //6 - 1=3, 1!=2, 1!=4, 2!=4
-						colors.add (2, cl4);
-						result = 6;
-					}
-				}
-			} else {          //2,3,5,6,7 - 1!=2, 1!=3
-				if (cl1 == cl4) { //3,5 - 1=4, 1!=2, 1!=3
-					colors.add (0, cl1);
-					colors.add (1, cl2);
-					if (cl2 == cl3) { //3 - 1=4!=2=3
-						result = 3;
-					} else {          //5 - 1=4, 1!=2, 1!=3, 2!=3
-						colors.add (2, cl3);
-						result = 5;
-					}
-				} else {          //2,5,6,7 - 1!=2, 1!=3, 1!=4
-					if (cl2 == cl3) { //2,5 - 2=3, 1!=2, 1!=4
-						colors.add (0, cl2);
-						if (cl2 == cl4) { //2 - 2=3=4!=1
-							colors.add (1, cl1);
-							result = 2;
-						} else {          //5 - 2=3, 2!=1, 2!=4, 1!=4
-							colors.add (1, cl4);
-							colors.add (2, cl1);
-							result = 5;
-						}
-					} else {          //5,6,7 - 1!=2, 1!=3, 1!=4, 2!=3
-						if (cl2 == cl4) { //6 - 2=4, 2!=1, 2!=3, 1!=3
-							colors.add (0, cl2);
-							colors.add (1, cl1);
-							colors.add (2, cl3);
-							result = 6;
-						} else {          //5,7 - 1!=2, 1!=3, 1!=4, 2!=3, 2!=4
-							if (cl3 == cl4) { //5 - 3=4, 3!=1, 3!=2, 1!=2
-								colors.add (0, cl3);
-								colors.add (1, cl1);
-								colors.add (2, cl2);
-								result = 5;
-							} else {          //7 - all 4 different
-								colors.add (0, cl1);
-								colors.add (1, cl2);
-								colors.add (2, cl3);
-								colors.add (3, cl4);
-								result = 7;
-							}
-						}
-					}
-				}
-			}
+		for (int i = 0; i < m_classification_colors_counts[result]; i++) {
+			colors.add (i, m_classification_colors[i]);
 		}
 
 		return result;
 	}
 
+	/*
+	 * classification without its colors
+	 */
+	public int getClassification ()
+	{
+		return m_classification;
+	}
+
+	/*
+	 * colors of the classification, see getClassification (ArrayList)
+	 */
+	public int getClassificationColorsCount ()
+	{
+		return m_classification_colors_counts[getClassification ()];
+	}
+
+	public int getClassificationColor (int index)
+	{
+		return m_classification_colors[index];
+	}
+
 	public String toProblemString ()
 	{
 		String result = Integer.toString (getColor (0));
@@ -335,6 +277,21 @@ public class Piece
 		}
 	}
 
+	/*
+	 * the same for all rotations of the piece (and only for equal pieces, see equals):
+	 * the smallest of the 4 rotations with the colors packed
+	 */
+	public long getCanonicalKey ()
+	{
+		long result = m_rotated_colors[0];
+
+		for (int i_rotation = 1; i_rotation < 4; i_rotation ++) {
+			if (m_rotated_colors[i_rotation] < result) result = m_rotated_colors[i_rotation];
+		}
+
+		return result;
+	}
+
 	public int hashCode ()
 	{
 		return m_hash_code;
@@ -355,14 +312,205 @@ public class Piece
 		
 		if (m_hash_code != other_piece.m_hash_code) return false;
 
-		for (int start_color = 0; start_color < 4; start_color ++) {
-			for (int count = 0; count < 4; count ++) {
-				if (m_colors.get (count) != other_piece.m_colors.get ((start_color + count) % 4)) break;
+		for (int i_rotation = 0; i_rotation < 4; i_rotation ++) {
+			if (m_rotated_colors[0] == other_piece.m_rotated_colors[i_rotation]) return true;
+		}
 
-				if (count == 3) return true;
+		return false;
+	}
+
+	/*
+	 * colors of the piece as given, for collections of colors
+	 */
+	protected ArrayList<Integer> getColorList ()
+	{
+		ArrayList<Integer> result = new ArrayList<Integer> (4);
+
+		for (int i = 0; i < 4; i++) {
+			result.add (getColor (m_rotated_colors[0], i));
+		}
+
+		return result;
+	}
+
+	/*
+	 * new colors of the piece as given --> rotations and classification are computed
+	 */
+	protected void setColors (long colors)
+	{
+		for (int i_rotation = 0; i_rotation < 4; i_rotation ++) {
+			m_rotated_colors[i_rotation] = rotate (colors, i_rotation);
+		}
+
+		m_classification = getClassification (colors, m_classification_colors);
+	}
+
+	/*
+	 * ===============================================================================
+	 * packed colors ...
+	 * ===============================================================================
+	 */
+
+	/*
+	 * colors fitting into 16 bits (signed)
+	 */
+	public static boolean isValidColor (int color)
+	{
+		return ((color >= Short.MIN_VALUE) && (color <= Short.MAX_VALUE));
+	}
+
+	public static long pack (int color1, int color2, int color3, int color4)
+	{
+		return (color1 & 0xffffL) | ((color2 & 0xffffL) << 16) | ((color3 & 0xffffL) << 32) | ((color4 & 0xffffL) << 48);
+	}
+
+	public static int getColor (long colors, int index)
+	{
+		return (short) (colors >>> (index << 4));
+	}
+
+	public static long setColor (long colors, int index, int color)
+	{
+		int shift = index << 4;
+
+		return (colors & ~ (0xffffL << shift)) | ((color & 0xffffL) << shift);
+	}
+
+	/*
+	 * rotation in 90 degree steps clockwise --> color i moves to position i + rotation
+	 */
+	public static long rotate (long colors, int rotation)
+	{
+		return Long.rotateLeft (colors, (rotation & 3) << 4);
+	}
+
+	public static int getBorderColorLeft (long colors)
+	{
+		for (int i = 0; i < 4; i++) {
+			if ((getColor (colors, i) != 0) && (getColor (colors, (i + 1) % 4) == 0)) {
+				return getColor (colors, i);
 			}
 		}
 
-		return false;
+		return -1;
+	}
+
+	public static int getBorderColorRight (long colors)
+	{
+		for (int i = 0; i < 4; i++) {
+			if ((getColor (colors, i) == 0) && (getColor (colors, (i + 1) % 4) != 0)) {
+				return getColor (colors, (i + 1) % 4);
+			}
+		}
+
+		return -1;
+	}
+
+	public static int getBorderColorBottem (long colors)
+	{
+		for (int i = 0; i < 4; i++) {
+			if (getColor (colors, i) == 0) {
+				return getColor (colors, (i + 2) % 4);
+			}
+		}
+
+		return -1;
+	}
+
+	/*
+	 * classification (see getClassification (ArrayList)), its colors are written to classificationColors
+	 */
+	public static int getClassification (long colors, int[] classificationColors)
+	{
+		int result = 0;
+
+		int cl1 = getColor (colors, 0);
+		int cl2 = getColor (colors, 1);
+		int cl3 = getColor (colors, 2);
+		int cl4 = getColor (colors, 3);
+
+		if (cl1 == cl2) { //1,2,3,5 - 1=2
+			classificationColors[0] = cl1;
+			if (cl1 == cl3) { //1,2 - 1=2=3
+				if (cl1 == cl4) { //1 - 1=2=3=4
+					result = 1;
+				} else {          //2 - 1=2=3!=4
+					classificationColors[1] = cl4;
+					result = 2;
+				}
+			} else {          //2,3,5 - 1=2!=3
+				classificationColors[1] = cl3;
+				if (cl3 == cl4) { //3 - 1=2!=3=4
+					result = 3;
+				} else {          //2,5 - 1=2!=3, 3!=4
+					if (cl1 == cl4) { //2 - 1=2=4!=3
+						result = 2;
+					} else {          //5 - 1=2!=3, 3!=4, 1!=4
+						classificationColors[2] = cl4;
+						result = 5;
+					}
+				}
+			}
+		} else {          //2,3,4,5,6,7 - 1!=2
+			if (cl1 == cl3) { //2,4,6 - 1=3!=2
+				classificationColors[0] = cl1;
+				classificationColors[1] = cl2;
+				if (cl1 == cl4) { //2 - 1=3=4!=2
+					result = 2;
+				} else {          //4,6 - 1=3, 1!=2, 1!=4
+					if (cl2 == cl4) { //4 - 1=3!=2=4
+						result = 4;
+					} else {          //6 - 1=3, 1!=2, 1!=4, 2!=4
+						classificationColors[2] = cl4;
+						result = 6;
+					}
+				}
+			} else {          //2,3,5,6,7 - 1!=2, 1!=3
+				if (cl1 == cl4) { //3,5 - 1=4, 1!=2, 1!=3
+					classificationColors[0] = cl1;
+					classificationColors[1] = cl2;
+					if (cl2 == cl3) { //3 - 1=4!=2=3
+						result = 3;
+					} else {          //5 - 1=4, 1!=2, 1!=3, 2!=3
+						classificationColors[2] = cl3;
+						result = 5;
+					}
+				} else {          //2,5,6,7 - 1!=2, 1!=3, 1!=4
+					if (cl2 == cl3) { //2,5 - 2=3, 1!=2, 1!=4
+						classificationColors[0] = cl2;
+						if (cl2 == cl4) { //2 - 2=3=4!=1
+							classificationColors[1] = cl1;
+							result = 2;
+						} else {          //5 - 2=3, 2!=1, 2!=4, 1!=4
+							classificationColors[1] = cl4;
+							classificationColors[2] = cl1;
+							result = 5;
+						}
+					} else {          //5,6,7 - 1!=2, 1!=3, 1!=4, 2!=3
+						if (cl2 == cl4) { //6 - 2=4, 2!=1, 2!=3, 1!=3
+							classificationColors[0] = cl2;
+							classificationColors[1] = cl1;
+							classificationColors[2] = cl3;
+							result = 6;
+						} else {          //5,7 - 1!=2, 1!=3, 1!=4, 2!=3, 2!=4
+							if (cl3 == cl4) { //5 - 3=4, 3!=1, 3!=2, 1!=2
+								classificationColors[0] = cl3;
+								classificationColors[1] = cl1;
+								classificationColors[2] = cl2;
+								result = 5;
+							} else {          //7 - all 4 different
+								classificationColors[0] = cl1;
+								classificationColors[1] = cl2;
+								classificationColors[2] = cl3;
+								classificationColors[3] = cl4;
+								result = 7;
+							}
+						}
+					}
+				}
+			}
+		}
+
+		return result;
 	}
 }
@@ -0,0 +1,114 @@
+package edgematching.problem;
+
+import java.util.*;
+
+/*
+ * read-only copy of a list of pieces (by index in the list) in arrays ...
+ * --> the colors packed (see Piece.pack), the classification and the border colors
+ *  of all pieces without Piece objects, Integer lists or rotation arithmetic
+ *
+ * the pieces as given (rotation 0), so later rotations of the pieces do not matter
+ */
+public class PieceSet
+{
+	protected int m_size;
+
+	/*
+	 * packed colors of each piece, for all 4 rotations (4 entries per piece)
+	 */
+	protected long[] m_rotated_colors;
+
+	/*
+	 * classification of each piece and its colors (4 entries per piece)
+	 */
+	protected int[] m_classifications;
+	protected int[] m_classification_colors;
+
+	/*
+	 * border colors of corner and border pieces (-1 for the others)
+	 */
+	protected int[] m_border_colors_left;
+	protected int[] m_border_colors_right;
+	protected int[] m_border_colors_bottom;
+
+	public PieceSet (List<Piece> pieces)
+	{
+		m_size = pieces.size ();
+
+		m_rotated_colors        = new long [4 * m_size];
+		m_classifications       = new int [m_size];
+		m_classification_colors = new int [4 * m_size];
+		m_border_colors_left    = new int [m_size];
+		m_border_colors_right   = new int [m_size];
+		m_border_colors_bottom  = new int [m_size];
+
+		int[] classification_colors = new int [4];
+
+		for (int i_piece = 0; i_piece < m_size; i_piece ++) {
+			long colors = pieces.get (i_piece).getColors ();
+
+			for (int i_rotation = 0; i_rotation < 4; i_rotation ++) {
+				m_rotated_colors[4 * i_piece + i_rotation] = Piece.rotate (colors, i_rotation);
+			}
+
+			m_classifications[i_piece] = Piece.getClassification (colors, classification_colors);
+
+			System.arraycopy (classification_colors, 0, m_classification_colors, 4 * i_piece, 4);
+
+			m_border_colors_left[i_piece]   = Piece.getBorderColorLeft (colors);
+			m_border_colors_right[i_piece]  = Piece.getBorderColorRight (colors);
+			m_border_colors_bottom[i_piece] = Piece.getBorderColorBottem (colors);
+		}
+	}
+
+	public int size ()
+	{
+		return m_size;
+	}
+
+	/*
+	 * packed colors of piece with the given rotation
+	 */
+	public long getColors (int piece, int rotation)
+	{
+		return m_rotated_colors[4 * piece + rotation];
+	}
+
+	/*
+	 * color at position index of piece with the given rotation (see Piece.getColor)
+	 */
+	public int getColor (int piece, int rotation, int index)
+	{
+		return Piece.getColor (m_rotated_colors[4 * piece + rotation], index);
+	}
+
+	public int getClassification (int piece)
+	{
+		return m_classifications[piece];
+	}
+
+	public int getClassificationColorsCount (int piece)
+	{
+		return Piece.m_classification_colors_counts[m_classifications[piece]];
+	}
+
+	public int getClassificationColor (int piece, int index)
+	{
+		return m_classification_colors[4 * piece + index];
+	}
+
+	public int getBorderColorLeft (int piece)
+	{
+		return m_border_colors_left[piece];
+	}
+
+	public int getBorderColorRight (int piece)
+	{
+		return m_border_colors_right[piece];
+	}
+
+	public int getBorderColorBottom (int piece)
+	{
+		return m_border_colors_bottom[piece];
+	}
+}
@@ -0,0 +1,457 @@
+package edgematching.problem;
+
+import java.util.*;
+
+/*
+ * possible placements (piece, place, rotation) of a problem
+ * --> computed before encoding, the encodings give impossible placements
+ *  no variables and skip their clauses
+ *
+ * arc-consistency (AC-3):
+ *  a rotated piece stays on a place as long as each side matches a value of the neighbour place
+ *  (frame sides of bounded problems need color 0), found by counting per place, side and color
+ *  how many values show the color there --> a count dropping to 0 puts the neighbour into the queue
+ *  a place left with a single piece takes that piece from all other places
+ *
+ * pieces are numbered as in the encodings (corner, border, center pieces), places are y * width + x
+ */
+public class PlacementDomains
+{
+	protected static final int m_kind_corner = 0;
+	protected static final int m_kind_border = 1;
+	protected static final int m_kind_center = 2;
+
+	protected int     m_grid_width;
+	protected int     m_grid_height;
+	protected boolean m_bounded;
+
+	/*
+	 * colors of the pieces clockwise (piece * 4 + side, at rotation 0), mapped to {0, ..., m_colors_count - 1}
+	 * --> m_frame_color: mapped color 0, -1 if no piece has it
+	 */
+	protected int[] m_piece_colors;
+	protected int   m_colors_count;
+	protected int   m_frame_color;
+
+	/*
+	 * kind of each piece and place, index of each piece within its kind
+	 */
+	protected int[]   m_piece_kinds;
+	protected int[]   m_piece_indices;
+	protected int[][] m_kind_pieces;
+	protected int[]   m_place_kinds;
+
+	/*
+	 * domain of each place, values are index of piece within its kind * 4 + rotation
+	 */
+	protected boolean[][] m_domains;
+	protected int[]       m_domain_sizes;
+
+	/*
+	 * m_supports[place][side * m_colors_count + color]: values of place showing color on side
+	 */
+	protected int[][] m_supports;
+
+	/*
+	 * places whose single piece was already removed from the other places
+	 */
+	protected boolean[] m_assigned;
+
+	/*
+	 * queue of places to revise (AC-3)
+	 */
+	protected ArrayDeque<Integer> m_queue;
+	protected boolean[]           m_queued;
+
+	protected boolean m_feasible;
+
+	public PlacementDomains (Problem problem)
+	{
+		m_grid_width  = problem.m_grid_width;
+		m_grid_height = problem.m_grid_height;
+		m_bounded     = problem.m_bounded;
+
+		initPieces (problem);
+		initPlaces ();
+		initDomains ();
+
+		propagate ();
+	}
+
+	/*
+	 * false if a place or a piece has no possible placement --> the problem has no solution
+	 */
+	public boolean isFeasible ()
+	{
+		return m_feasible;
+	}
+
+	/*
+	 * piece can be on place in some rotation
+	 */
+	public boolean isPossible (int piece, int place)
+	{
+		if (m_piece_kinds[piece] != m_place_kinds[place]) return false;
+
+		int first_value = 4 * m_piece_indices[piece];
+
+		for (int i_rotation = 0; i_rotation < 4; i_rotation ++) {
+			if (m_domains[place][first_value + i_rotation]) return true;
+		}
+
+		return false;
+	}
+
+	/*
+	 * piece can be on place with rotation (in 90 degree steps clockwise, see Piece)
+	 */
+	public boolean isPossible (int piece, int place, int rotation)
+	{
+		if (m_piece_kinds[piece] != m_place_kinds[place]) return false;
+
+		return m_domains[place][4 * m_piece_indices[piece] + (rotation % 4)];
+	}
+
+	/*
+	 * pairs (piece, place) of the same kind, i.e. the placement variables without pruning
+	 */
+	public long getAmountOfPlacements ()
+	{
+		long result = 0;
+
+		for (int i_place = 0; i_place < m_place_kinds.length; i_place ++) {
+			result += m_kind_pieces[m_place_kinds[i_place]].length;
+		}
+
+		return result;
+	}
+
+	/*
+	 * pairs (piece, place) still possible
+	 */
+	public long getAmountOfPossiblePlacements ()
+	{
+		long result = 0;
+
+		for (int i_place = 0; i_place < m_place_kinds.length; i_place ++) {
+			for (int i_piece : m_kind_pieces[m_place_kinds[i_place]]) {
+				if (isPossible (i_piece, i_place)) result ++;
+			}
+		}
+
+		return result;
+	}
+
+	public void printStatistics ()
+	{
+		System.err.println ("pruning: " + getAmountOfPossiblePlacements () + " of " + getAmountOfPlacements () + " placements possible" +
+				(m_feasible ? "" : ", no solution"));
+	}
+
+	/*
+	 * ===============================================================================
+	 * propagation ...
+	 * ===============================================================================
+	 */
+
+	/*
+	 * AC-3: revise places until no domain changes any more
+	 */
+	protected void propagate ()
+	{
+		m_queue  = new ArrayDeque<Integer> ();
+		m_queued = new boolean [m_domains.length];
+
+		for (int i_place = 0; i_place < m_domains.length; i_place ++) {
+			enqueue (i_place);
+		}
+
+		while (m_feasible && (! m_queue.isEmpty ())) {
+			int place = m_queue.poll ();
+
+			m_queued[place] = false;
+
+			revise (place);
+		}
+
+		m_queue  = null;
+		m_queued = null;
+
+		if (! m_feasible) return;
+
+		// each piece needs a place
+		for (int[] i_pieces : m_kind_pieces) {
+			for (int i_piece : i_pieces) {
+				boolean placed = false;
+
+				for (int i_place = 0; (i_place < m_domains.length) && (! placed); i_place ++) {
+					placed = isPossible (i_piece, i_place);
+				}
+
+				if (! placed) m_feasible = false;
+			}
+		}
+	}
+
+	/*
+	 * remove the unsupported values of place,
+	 * a single piece left is removed from all other places
+	 */
+	protected void revise (int place)
+	{
+		boolean[] domain = m_domains[place];
+
+		for (int i_value = 0; i_value < domain.length; i_value ++) {
+			if (domain[i_value] && (! isSupported (place, i_value))) removeValue (place, i_value);
+		}
+
+		if (m_domain_sizes[place] == 0) {
+			m_feasible = false;
+			return;
+		}
+
+		if (m_assigned[place]) return;
+
+		int single_piece = -1;
+
+		for (int i_value = 0; i_value < domain.length; i_value ++) {
+			if (! domain[i_value]) continue;
+
+			if ((single_piece >= 0) && (single_piece != i_value / 4)) return;
+
+			single_piece = i_value / 4;
+		}
+
+		m_assigned[place] = true;
+
+		int kind = m_place_kinds[place];
+
+		for (int i_place = 0; i_place < m_domains.length; i_place ++) {
+			if ((i_place == place) || (m_place_kinds[i_place] != kind)) continue;
+
+			boolean changed = false;
+
+			for (int i_rotation = 0; i_rotation < 4; i_rotation ++) {
+				if (m_domains[i_place][4 * single_piece + i_rotation]) {
+					removeValue (i_place, 4 * single_piece + i_rotation);
+					changed = true;
+				}
+			}
+
+			if (changed) enqueue (i_place);
+		}
+	}
+
+	/*
+	 * each side of value matches the neighbour place (or the frame)
+	 */
+	protected boolean isSupported (int place, int value)
+	{
+		for (int i_side = 0; i_side < 4; i_side ++) {
+			int color     = getColor (place, value, i_side);
+			int neighbour = getNeighbour (place, i_side);
+
+			if (neighbour < 0) {
+				if (m_bounded && (color != m_frame_color)) return false;
+			} else {
+				if (m_supports[neighbour][((i_side + 2) % 4) * m_colors_count + color] == 0) return false;
+			}
+		}
+
+		return true;
+	}
+
+	protected void removeValue (int place, int value)
+	{
+		m_domains[place][value] = false;
+		m_domain_sizes[place] --;
+
+		for (int i_side = 0; i_side < 4; i_side ++) {
+			int color = getColor (place, value, i_side);
+
+			m_supports[place][i_side * m_colors_count + color] --;
+
+			// the last value with this color gone --> the neighbour may lose support
+			if (m_supports[place][i_side * m_colors_count + color] == 0) {
+				int neighbour = getNeighbour (place, i_side);
+
+				if (neighbour >= 0) enqueue (neighbour);
+			}
+		}
+	}
+
+	protected void enqueue (int place)
+	{
+		if (m_queued[place]) return;
+
+		m_queued[place] = true;
+		m_queue.add (place);
+	}
+
+	/*
+	 * ===============================================================================
+	 * helper functions ...
+	 * ===============================================================================
+	 */
+
+	/*
+	 * color on side (0 top, 1 right, 2 bottom, 3 left) of a value of place
+	 */
+	protected final int getColor (int place, int value, int side)
+	{
+		int piece    = m_kind_pieces[m_place_kinds[place]][value / 4];
+		int rotation = value % 4;
+
+		return m_piece_colors[4 * piece + (side + 4 - rotation) % 4];
+	}
+
+	/*
+	 * place next to place on side, -1 outside of the grid
+	 */
+	protected final int getNeighbour (int place, int side)
+	{
+		int x = place % m_grid_width;
+		int y = place / m_grid_width;
+
+		switch (side) {
+			case 0:  return (y > 0                 ? place - m_grid_width : -1);
+			case 1:  return (x < m_grid_width - 1  ? place + 1            : -1);
+			case 2:  return (y < m_grid_height - 1 ? place + m_grid_width : -1);
+			default: return (x > 0                 ? place - 1            : -1);
+		}
+	}
+
+	/*
+	 * ===============================================================================
+	 * initialization ...
+	 * ===============================================================================
+	 */
+
+	/*
+	 * number pieces as the encodings do and map their colors
+	 */
+	protected void initPieces (Problem problem)
+	{
+		ArrayList<Piece> pieces = new ArrayList<Piece> ();
+
+		pieces.addAll (problem.m_corner_pieces);
+		pieces.addAll (problem.m_border_pieces);
+		pieces.addAll (problem.m_center_pieces);
+
+		TreeMap<Integer,Integer> colors_map = new TreeMap<Integer,Integer> ();
+
+		for (Piece i_piece : pieces) {
+			for (int i_side = 0; i_side < 4; i_side ++) {
+				colors_map.put (i_piece.getColor (i_side), 0);
+			}
+		}
+
+		int i_color = 0;
+		for (Map.Entry<Integer,Integer> i_entry : colors_map.entrySet ()) {
+			i_entry.setValue (i_color ++);
+		}
+
+		m_colors_count = colors_map.size ();
+		m_frame_color  = (colors_map.containsKey (0) ? colors_map.get (0) : -1);
+
+		m_piece_colors  = new int [4 * pieces.size ()];
+		m_piece_kinds   = new int [pieces.size ()];
+		m_piece_indices = new int [pieces.size ()];
+		m_kind_pieces   = new int [3][];
+
+		for (int i_piece = 0; i_piece < pieces.size (); i_piece ++) {
+			Piece current_piece = pieces.get (i_piece);
+
+			// colors at rotation 0, whatever rotation the piece has now
+			for (int i_side = 0; i_side < 4; i_side ++) {
+				m_piece_colors[4 * i_piece + i_side] = colors_map.get (current_piece.getColor ((i_side + current_piece.getRotation ()) % 4));
+			}
+		}
+
+		int corners_count = problem.m_corner_pieces.size ();
+		int borders_count = problem.m_border_pieces.size ();
+		int centers_count = problem.m_center_pieces.size ();
+
+		initKind (m_kind_corner, 0, corners_count);
+		initKind (m_kind_border, corners_count, borders_count);
+		initKind (m_kind_center, corners_count + borders_count, centers_count);
+	}
+
+	protected void initKind (int kind, int firstPiece, int count)
+	{
+		m_kind_pieces[kind] = new int [count];
+
+		for (int i_index = 0; i_index < count; i_index ++) {
+			m_piece_kinds[firstPiece + i_index]   = kind;
+			m_piece_indices[firstPiece + i_index] = i_index;
+			m_kind_pieces[kind][i_index]           = firstPiece + i_index;
+		}
+	}
+
+	protected void initPlaces ()
+	{
+		m_place_kinds = new int [m_grid_width * m_grid_height];
+
+		for (int i_place = 0; i_place < m_place_kinds.length; i_place ++) {
+			int x = i_place % m_grid_width;
+			int y = i_place / m_grid_width;
+
+			boolean frame_x = ((x == 0) || (x == m_grid_width - 1));
+			boolean frame_y = ((y == 0) || (y == m_grid_height - 1));
+
+			if (! m_bounded) {
+				m_place_kinds[i_place] = m_kind_center;
+			} else if (frame_x && frame_y) {
+				m_place_kinds[i_place] = m_kind_corner;
+			} else if (frame_x || frame_y) {
+				m_place_kinds[i_place] = m_kind_border;
+			} else {
+				m_place_kinds[i_place] = m_kind_center;
+			}
+		}
+	}
+
+	/*
+	 * all rotated pieces of the kind of the place,
+	 * in bounded problems exactly the sides at the frame have color 0
+	 */
+	protected void initDomains ()
+	{
+		int places_count = m_place_kinds.length;
+
+		m_domains      = new boolean [places_count][];
+		m_domain_sizes = new int [places_count];
+		m_supports     = new int [places_count][4 * m_colors_count];
+		m_assigned     = new boolean [places_count];
+		m_feasible     = true;
+
+		for (int i_place = 0; i_place < places_count; i_place ++) {
+			boolean[] domain = new boolean [4 * m_kind_pieces[m_place_kinds[i_place]].length];
+
+			m_domains[i_place] = domain;
+
+			for (int i_value = 0; i_value < domain.length; i_value ++) {
+				if (m_bounded && (! matchesFrame (i_place, i_value))) continue;
+
+				domain[i_value] = true;
+				m_domain_sizes[i_place] ++;
+
+				for (int i_side = 0; i_side < 4; i_side ++) {
+					m_supports[i_place][i_side * m_colors_count + getColor (i_place, i_value, i_side)] ++;
+				}
+			}
+		}
+	}
+
+	protected boolean matchesFrame (int place, int value)
+	{
+		for (int i_side = 0; i_side < 4; i_side ++) {
+			boolean frame_side  = (getNeighbour (place, i_side) < 0);
+			boolean frame_color = (getColor (place, value, i_side) == m_frame_color);
+
+			if (frame_side != frame_color) return false;
+		}
+
+		return true;
+	}
+}
@@ -44,6 +44,17 @@ public class Problem
 	protected SortedSet<Integer> m_border_colors;
 	protected SortedSet<Integer> m_center_colors;
 
+	/*
+	 * possible placements of the pieces, null if not pruned (see prunePlacements)
+	 */
+	protected PlacementDomains m_placement_domains;
+
+	/*
+	 * equal pieces (up to rotation) of each piece, null if not yet grouped (see getEqualPieces)
+	 * --> pieces numbered as in the encodings: corner, border and center pieces in this order
+	 */
+	protected ArrayList<ArrayList<Integer>> m_equal_pieces;
+
 	/*
 	 * constructor with main properties --> calculation of other properties possible
 	 */
@@ -73,6 +84,10 @@ public class Problem
 
 		m_border_colors = new TreeSet<Integer> ();
 		m_center_colors = new TreeSet<Integer> ();
+
+		m_placement_domains = null;
+
+		m_equal_pieces = null;
 	}
 
 	protected Problem (Problem problem)
@@ -93,6 +108,10 @@ public class Problem
 
 		m_border_colors = problem.m_border_colors;
 		m_center_colors = problem.m_center_colors;
+
+		m_placement_domains = problem.m_placement_domains;
+
+		m_equal_pieces = problem.m_equal_pieces;
 	}
 
 	/*
@@ -109,6 +128,23 @@ public class Problem
 		return true;
 	}
 
+	/*
+	 * compute the possible placements of the pieces (see PlacementDomains)
+	 * --> encodings created afterwards skip the impossible ones,
+	 *  false if the pruning shows that there is no solution
+	 */
+	public boolean prunePlacements ()
+	{
+		m_placement_domains = new PlacementDomains (this);
+
+		return m_placement_domains.isFeasible ();
+	}
+
+	public PlacementDomains getPlacementDomains ()
+	{
+		return m_placement_domains;
+	}
+
 	/*
 	 * add a piece to the problem --> put it to the correct set
 	 */
@@ -116,6 +152,8 @@ public class Problem
 	{
 		if (piece == null) return false;
 
+		m_equal_pieces = null;
+
 		if (m_bounded) {
 			switch (piece.getAmountOfColor (0)) {
 				case 0:
@@ -136,6 +174,47 @@ public class Problem
 		}
 	}
 
+	/*
+	 * pieces equal to the given one (itself included) in ascending order, the first is the same for all of them
+	 */
+	public ArrayList<Integer> getEqualPieces (int pieceNumber)
+	{
+		if (m_equal_pieces == null) groupEqualPieces ();
+
+		return m_equal_pieces.get (pieceNumber);
+	}
+
+	/*
+	 * one pass over all pieces, equal pieces have the same canonical key
+	 * --> equal pieces share one list
+	 */
+	protected void groupEqualPieces ()
+	{
+		int pieces_count = m_corner_pieces.size () + m_border_pieces.size () + m_center_pieces.size ();
+
+		m_equal_pieces = new ArrayList<ArrayList<Integer>> (pieces_count);
+
+		Map<Long,ArrayList<Integer>> groups     = new HashMap<Long,ArrayList<Integer>> ();
+		ArrayList<Piece>             all_pieces = new ArrayList<Piece> (pieces_count);
+
+		all_pieces.addAll (m_corner_pieces);
+		all_pieces.addAll (m_border_pieces);
+		all_pieces.addAll (m_center_pieces);
+
+		for (Piece i_piece : all_pieces) {
+			Long               key   = i_piece.getCanonicalKey ();
+			ArrayList<Integer> group = groups.get (key);
+
+			if (group == null) {
+				group = new ArrayList<Integer> ();
+				groups.put (key, group);
+			}
+
+			group.add (m_equal_pieces.size ());
+			m_equal_pieces.add (group);
+		}
+	}
+
 	/*
 	 * print problem (header and pieces)
 	 */
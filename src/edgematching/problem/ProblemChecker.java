@@ -0,0 +1,191 @@
+package edgematching.problem;
+
+import java.util.*;
+
+/*
+ * cheap necessary conditions for a solution, checked before encoding
+ * --> a problem failing one of them is unsatisfiable, so it needs no solver
+ *
+ * only bounded problems are checked (in unbounded ones the sides at the edge of the grid match nothing):
+ *  parity:  each diamond joins two sides of the same color --> every color appears an even number
+ *           of times on the sides next to the frame and on the inner sides
+ *  balance: clockwise along the frame the right border color of a piece is the left one of the next
+ *           --> per color as many pieces with it on the right as on the left
+ *  frame:   these successions need a perfect matching (right side --> left side of another piece),
+ *           found with augmenting paths
+ */
+public class ProblemChecker
+{
+	protected Problem m_problem;
+
+	/*
+	 * reason of the last failed check, null if all checks passed
+	 */
+	protected String m_reason;
+
+	public ProblemChecker (Problem problem)
+	{
+		m_problem = problem;
+		m_reason  = null;
+	}
+
+	/*
+	 * false if the problem has certainly no solution (see getReason)
+	 */
+	public boolean check ()
+	{
+		m_reason = null;
+
+		if (! m_problem.m_bounded) return true;
+
+		return checkParity () && checkBorderBalance () && checkFrameMatching ();
+	}
+
+	public String getReason ()
+	{
+		return m_reason;
+	}
+
+	/*
+	 * colors next to the frame (border diamonds) and inner colors (center diamonds) appear in pairs
+	 */
+	protected boolean checkParity ()
+	{
+		TreeMap<Integer,Integer> border_counts = new TreeMap<Integer,Integer> ();
+		TreeMap<Integer,Integer> center_counts = new TreeMap<Integer,Integer> ();
+
+		for (Piece i_piece : getFramePieces ()) {
+			increment (border_counts, i_piece.getBorderColorLeft ());
+			increment (border_counts, i_piece.getBorderColorRight ());
+
+			// the inner side of a border piece (corners have none)
+			if (i_piece.getAmountOfColor (0) == 1) increment (center_counts, i_piece.getBorderColorBottem ());
+		}
+
+		for (Piece i_piece : m_problem.m_center_pieces) {
+			for (int i_side = 0; i_side < 4; i_side ++) {
+				increment (center_counts, i_piece.getColor (i_side));
+			}
+		}
+
+		for (Map.Entry<Integer,Integer> i_entry : border_counts.entrySet ()) {
+			if (i_entry.getValue () % 2 != 0) {
+				m_reason = "border color " + i_entry.getKey () + " appears " + i_entry.getValue () + " times";
+				return false;
+			}
+		}
+
+		for (Map.Entry<Integer,Integer> i_entry : center_counts.entrySet ()) {
+			if (i_entry.getValue () % 2 != 0) {
+				m_reason = "center color " + i_entry.getKey () + " appears " + i_entry.getValue () + " times";
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/*
+	 * each color of m_border_colors on as many left as right sides of the frame pieces
+	 */
+	protected boolean checkBorderBalance ()
+	{
+		TreeMap<Integer,Integer> left_counts  = new TreeMap<Integer,Integer> ();
+		TreeMap<Integer,Integer> right_counts = new TreeMap<Integer,Integer> ();
+
+		for (Piece i_piece : getFramePieces ()) {
+			increment (left_counts, i_piece.getBorderColorLeft ());
+			increment (right_counts, i_piece.getBorderColorRight ());
+		}
+
+		for (Integer i_color : m_problem.m_border_colors) {
+			int left_count  = (left_counts.containsKey (i_color)  ? left_counts.get (i_color)  : 0);
+			int right_count = (right_counts.containsKey (i_color) ? right_counts.get (i_color) : 0);
+
+			if (left_count != right_count) {
+				m_reason = "border color " + i_color + " is " + left_count + " times left and " + right_count + " times right of the frame";
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/*
+	 * perfect matching of the frame pieces: right side of a piece --> left side of another one
+	 */
+	protected boolean checkFrameMatching ()
+	{
+		ArrayList<Piece> pieces = getFramePieces ();
+
+		int pieces_count = pieces.size ();
+
+		// successors[i]: pieces whose left color is the right color of piece i
+		int[][] successors = new int [pieces_count][];
+
+		for (int i_piece = 0; i_piece < pieces_count; i_piece ++) {
+			int   color       = pieces.get (i_piece).getBorderColorRight ();
+			int[] candidates  = new int [pieces_count];
+			int   count       = 0;
+
+			for (int j_piece = 0; j_piece < pieces_count; j_piece ++) {
+				if ((j_piece != i_piece) && (pieces.get (j_piece).getBorderColorLeft () == color)) candidates[count ++] = j_piece;
+			}
+
+			successors[i_piece] = Arrays.copyOf (candidates, count);
+		}
+
+		// predecessors[j]: piece matched to the left side of j, -1 if none
+		int[]     predecessors = new int [pieces_count];
+		boolean[] visited      = new boolean [pieces_count];
+
+		Arrays.fill (predecessors, -1);
+
+		for (int i_piece = 0; i_piece < pieces_count; i_piece ++) {
+			Arrays.fill (visited, false);
+
+			if (! augment (i_piece, successors, predecessors, visited)) {
+				m_reason = "no piece of the frame can follow " + pieces.get (i_piece).toProblemString ();
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/*
+	 * find an augmenting path starting at the right side of piece (depth-first)
+	 */
+	protected boolean augment (int piece, int[][] successors, int[] predecessors, boolean[] visited)
+	{
+		for (int i_successor : successors[piece]) {
+			if (visited[i_successor]) continue;
+
+			visited[i_successor] = true;
+
+			if ((predecessors[i_successor] < 0) || augment (predecessors[i_successor], successors, predecessors, visited)) {
+				predecessors[i_successor] = piece;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/*
+	 * corner and border pieces
+	 */
+	protected ArrayList<Piece> getFramePieces ()
+	{
+		ArrayList<Piece> result = new ArrayList<Piece> (m_problem.m_corner_pieces);
+
+		result.addAll (m_problem.m_border_pieces);
+
+		return result;
+	}
+
+	protected static void increment (Map<Integer,Integer> counts, int color)
+	{
+		counts.put (color, (counts.containsKey (color) ? counts.get (color) + 1 : 1));
+	}
+}
@@ -0,0 +1,166 @@
+package edgematching.problem;
+
+import java.util.*;
+import edgematching.cnf.*;
+
+/*
+ * extends ProblemEncodingOrder, so that equal pieces (Piece.equals, i.e. up to rotation)
+ * are one piece type with a multiplicity ...
+ *
+ * only the first piece of each type gets placement variables, it stands for the type:
+ * a place holds exactly one type, a type with multiplicity m is on exactly m places
+ * (sequential counter, see CardinalityEncoder.encodeExactly)
+ * --> no "two equal pieces cannot be on the same place" clauses and no symmetric
+ *  solutions which only swap equal pieces
+ *
+ * the pieces of a type are assigned to its places when decoding
+ */
+public class ProblemEncodingMultiset extends ProblemEncodingOrder
+{
+	/*
+	 * multiplicity of each piece type (by piece number of its first piece, 0 for the others)
+	 * --> the pieces of a type are its equal pieces (see Problem.getEqualPieces)
+	 */
+	protected int[] m_piece_multiplicities;
+
+	/*
+	 * counts the places of piece types with multiplicity > 1
+	 */
+	protected CardinalityEncoder m_piece_types_encoder;
+
+	/*
+	 * constructor cloning the original problem
+	 */
+	public ProblemEncodingMultiset (Problem problem)
+	{
+		super (problem);
+
+		m_piece_multiplicities = new int [m_pieces.size ()];
+		m_piece_types_encoder  = new CardinalityEncoder (CardinalityEncoding.sequential);
+
+		m_corner_piece_numbers = groupPieceTypes (m_corner_piece_numbers);
+		m_border_piece_numbers = groupPieceTypes (m_border_piece_numbers);
+		m_center_piece_numbers = groupPieceTypes (m_center_piece_numbers);
+
+		// variables only for the first piece of each type
+		initPlacementVariables ();
+		initColorVariables ();
+
+		m_sat_comment = "multiset encoding of an etch-matching puzzle\n" +
+				"with size " + m_grid_width + " x " + m_grid_height + "\n" +
+				(m_bounded ? "bounded" : "unbounded") + " and " + (m_signed ? "signed" : "unsigned") + ".\n";
+	}
+
+	/*
+	 * a type is on as many places as it has pieces
+	 */
+	@Override
+	protected void encodePiecePlaces (ClauseSink sink, int piece, ArrayList<Integer> placeNumbers, int[] clauseBuffer)
+	{
+		int multiplicity = m_piece_multiplicities[piece];
+
+		if (multiplicity == 1) {
+			super.encodePiecePlaces (sink, piece, placeNumbers, clauseBuffer);
+			return;
+		}
+
+		int clause_length = 0;
+
+		for (Integer i_place : placeNumbers) {
+			int placement = convertXijToSATVariable (piece, i_place);
+
+			if (placement != 0) clauseBuffer[clause_length ++] = placement;
+		}
+
+		int first_variable = m_next_free_variable;
+
+		m_next_free_variable += (int) m_piece_types_encoder.getAmountOfAuxiliaryVariables (placeNumbers.size (), multiplicity);
+
+		m_piece_types_encoder.encodeExactly (sink, clauseBuffer, clause_length, multiplicity, first_variable);
+	}
+
+	/*
+	 * types instead of pieces
+	 */
+	@Override
+	protected long getAmountOfPlacementAuxiliaryVariables ()
+	{
+		long result = 0;
+
+		result += getAmountOfPlacementAuxiliaryVariables (m_corner_piece_numbers, m_corner_pieces_count);
+		result += getAmountOfPlacementAuxiliaryVariables (m_border_piece_numbers, m_border_pieces_count);
+		result += getAmountOfPlacementAuxiliaryVariables (m_center_piece_numbers, m_center_pieces_count);
+
+		return result;
+	}
+
+	protected long getAmountOfPlacementAuxiliaryVariables (ArrayList<Integer> pieceNumbers, int placesCount)
+	{
+		long result = getAmountOfAuxiliaryVariables (m_place_pieces_encoder, placesCount, pieceNumbers.size ());
+
+		for (Integer i_piece : pieceNumbers) {
+			int multiplicity = m_piece_multiplicities[i_piece];
+
+			if (multiplicity == 1) {
+				result += getAmountOfAuxiliaryVariables (m_piece_places_encoder, 1, placesCount);
+			} else {
+				result += m_piece_types_encoder.getAmountOfAuxiliaryVariables (placesCount, multiplicity);
+			}
+		}
+
+		return result;
+	}
+
+	/*
+	 * the type on a place is its first piece --> each place gets a piece of its own
+	 */
+	@Override
+	protected void rotatePieces ()
+	{
+		assignPieces ();
+
+		super.rotatePieces ();
+	}
+
+	protected void assignPieces ()
+	{
+		Map<Integer,Integer> used_counts = new TreeMap<Integer,Integer> ();
+
+		for (int i_place = 0; i_place < m_solution_grid.size (); i_place ++) {
+			Piece current_piece = m_solution_grid.get (i_place);
+
+			if (current_piece == null) continue;
+
+			// first equal piece --> the type
+			int type = m_pieces.indexOf (current_piece);
+
+			ArrayList<Integer> type_pieces = getEqualPieces (type);
+			int                used_count  = (used_counts.containsKey (type) ? used_counts.get (type) : 0);
+
+			// more places than pieces are only possible in an invalid model
+			if (used_count >= type_pieces.size ()) continue;
+
+			m_solution_grid.set (i_place, m_pieces.get (type_pieces.get (used_count)));
+			used_counts.put (type, used_count + 1);
+		}
+	}
+
+	/*
+	 * first piece of each type, the multiplicities are recorded
+	 */
+	protected ArrayList<Integer> groupPieceTypes (ArrayList<Integer> pieceNumbers)
+	{
+		ArrayList<Integer> result = new ArrayList<Integer> ();
+
+		for (Integer i_piece : pieceNumbers) {
+			ArrayList<Integer> equal_pieces = getEqualPieces (i_piece);
+
+			if (equal_pieces.get (0) != i_piece.intValue ()) continue;
+
+			result.add (i_piece);
+			m_piece_multiplicities[i_piece] = equal_pieces.size ();
+		}
+
+		return result;
+	}
+}
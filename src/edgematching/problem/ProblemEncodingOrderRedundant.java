@@ -15,32 +15,32 @@ public class ProblemEncodingOrderRedundant extends ProblemEncodingOrder
 	}
 
 	@Override
-	public CNFFormula encodeToSAT ()
+	protected void encodeClauses (ClauseSink sink)
 	{
-		CNFFormula formula = super.encodeToSAT ();
+		super.encodeClauses (sink);
 
-		encodeForbiddenColorClauses (formula);
-
-		return formula;
+		encodeForbiddenColorClauses (sink);
 	}
 
-	protected void encodeForbiddenColorClauses (CNFFormula formula)
+	protected void encodeForbiddenColorClauses (ClauseSink sink)
 	{
 		// center colors
-		TreeMap<Integer,HashSet<Integer>> forbidden_color_sets_center = new TreeMap<Integer,HashSet<Integer>> ();
+		TreeMap<Integer,int[]> forbidden_color_sets_center = new TreeMap<Integer,int[]> ();
 
 		for (int i_piece : m_center_piece_numbers) {
 			Piece current_piece = m_pieces.get (i_piece);
 
 			HashSet<Integer> forbidden_colors        = new HashSet<Integer> ();
-			HashSet<Integer> forbidden_colors_mapped = new HashSet<Integer> ();
 
 			forbidden_colors.addAll (m_center_colors_map_forward.keySet ());
 
 			current_piece.removeAllColorsFrom (forbidden_colors);
 
+			int[] forbidden_colors_mapped = new int [forbidden_colors.size ()];
+			int   i_forbidden             = 0;
+
 			for (Integer i_color : forbidden_colors) {
-				forbidden_colors_mapped.add (m_center_colors_map_forward.get (i_color));
+				forbidden_colors_mapped[i_forbidden ++] = m_center_colors_map_forward.get (i_color);
 			}
 
 			forbidden_color_sets_center.put (i_piece, forbidden_colors_mapped);
@@ -60,18 +60,15 @@ public class ProblemEncodingOrderRedundant extends ProblemEncodingOrder
 			for (int i_piece : m_center_piece_numbers) {
 				int xij = convertXijToSATVariable (i_piece, i_place);
 
-				HashSet<Integer> forbidden_colors = forbidden_color_sets_center.get (i_piece);
+				if (xij == 0) continue;
 
-				for (Integer i_forbidden_color : forbidden_colors) {
-					int[] tempArray1 = {-xij, -convertYkcCenterToSATVariable (diamond_left,   i_forbidden_color)};
-					int[] tempArray2 = {-xij, -convertYkcCenterToSATVariable (diamond_right,  i_forbidden_color)};
-					int[] tempArray3 = {-xij, -convertYkcCenterToSATVariable (diamond_top,    i_forbidden_color)};
-					int[] tempArray4 = {-xij, -convertYkcCenterToSATVariable (diamond_bottom, i_forbidden_color)};
+				int[] forbidden_colors = forbidden_color_sets_center.get (i_piece);
 
-					formula.addClause (tempArray1);
-					formula.addClause (tempArray2);
-					formula.addClause (tempArray3);
-					formula.addClause (tempArray4);
+				for (int i_forbidden_color : forbidden_colors) {
+					sink.addBinary (-xij, -convertYkcCenterToSATVariable (diamond_left, i_forbidden_color));
+					sink.addBinary (-xij, -convertYkcCenterToSATVariable (diamond_right, i_forbidden_color));
+					sink.addBinary (-xij, -convertYkcCenterToSATVariable (diamond_top, i_forbidden_color));
+					sink.addBinary (-xij, -convertYkcCenterToSATVariable (diamond_bottom, i_forbidden_color));
 				}
 			}
 		}
@@ -1,6 +1,7 @@
 package edgematching.problem;
 
 import java.util.*;
+import java.util.concurrent.*;
 import edgematching.cnf.*;
 
 /*
@@ -24,9 +25,10 @@ public class ProblemEncodingSimple extends Problem
 	protected Map<Integer,Integer> m_center_colors_map_backward;
 
 	/*
-	 * list of all pieces
+	 * list of all pieces, their colors and classifications in arrays (same piece numbers)
 	 */
 	protected ArrayList<Piece> m_pieces;
+	protected PieceSet         m_piece_set;
 
 	/*
 	 * numbers of pieces sorted by kind of piece
@@ -42,6 +44,42 @@ public class ProblemEncodingSimple extends Problem
 	protected ArrayList<Integer> m_border_place_numbers;
 	protected ArrayList<Integer> m_center_place_numbers;
 
+	/*
+	 * allocator of all sat-variables of the encoding
+	 * --> detects encodings needing more variables than DIMACS allows
+	 */
+	protected VariableAllocator m_variable_allocator;
+
+	/*
+	 * placement variables x_ij: one range per kind of piece (corner, border, center)
+	 * --> only pieces and places of the same kind get a variable,
+	 *  within a range place by place: start + index of place * pieces of the kind + index of piece
+	 *
+	 * m_piece_kinds / m_place_kinds: kind of each piece / place
+	 * m_piece_indices / m_place_indices: index of each piece / place within its kind
+	 * m_kind_piece_numbers / m_kind_place_numbers: pieces / places of each kind
+	 */
+	protected static final int m_kind_corner = 0;
+	protected static final int m_kind_border = 1;
+	protected static final int m_kind_center = 2;
+
+	protected int[]   m_piece_kinds;
+	protected int[]   m_piece_indices;
+	protected int[]   m_place_kinds;
+	protected int[]   m_place_indices;
+	protected int[][] m_kind_piece_numbers;
+	protected int[][] m_kind_place_numbers;
+	protected int[]   m_placement_starts;
+
+	/*
+	 * only if the placements were pruned (see PlacementDomains), null otherwise:
+	 * the possible placements of a kind get consecutive variables, impossible ones none
+	 * m_placement_variables[kind][index as above]: variable, 0 if impossible
+	 * m_placement_indices[kind][variable - start]: index as above
+	 */
+	protected int[][] m_placement_variables;
+	protected int[][] m_placement_indices;
+
 	/*
 	 * diamonds and mapping of diamonds ...
 	 */
@@ -63,6 +101,19 @@ public class ProblemEncodingSimple extends Problem
 	protected int m_sat_start_center_diamonds;
 	protected int m_sat_start_next_free_variable;
 
+	/*
+	 * encoding of the diamond colors (see ColorEncoding)
+	 * --> log: the y_kc variables above are virtual (at the end of the variable range),
+	 *  the clauses are written through a LogColorSink onto the bits
+	 */
+	protected ColorEncoding m_color_encoding;
+
+	protected int m_sat_start_colors;
+	protected int m_sat_start_border_bits;
+	protected int m_sat_start_center_bits;
+	protected int m_border_color_bits;
+	protected int m_center_color_bits;
+
 	/*
 	 * Solution mapping
 	 */
@@ -73,6 +124,27 @@ public class ProblemEncodingSimple extends Problem
 	 */
 	protected String m_sat_comment;
 
+	/*
+	 * threads encoding the diamond correlation in parallel (1 = sequential)
+	 */
+	protected int m_encoding_threads;
+
+	/*
+	 * "exactly one" constraints of the families (see CardinalityEncoder):
+	 *  m_piece_places_encoder:   each piece on one of its places
+	 *  m_place_pieces_encoder:   each place with one of its pieces
+	 *  m_diamond_colors_encoder: each diamond with one color
+	 * null --> only "at least one" (pieces and places of the simple encoding)
+	 */
+	protected CardinalityEncoder m_piece_places_encoder;
+	protected CardinalityEncoder m_place_pieces_encoder;
+	protected CardinalityEncoder m_diamond_colors_encoder;
+
+	/*
+	 * next auxiliary variable of the cardinality encoders while encoding
+	 */
+	protected int m_next_free_variable;
+
 	/*
 	 * simple constructor cloning the original problem
 	 */
@@ -80,13 +152,22 @@ public class ProblemEncodingSimple extends Problem
 	{
 		super (problem);
 
+		m_color_encoding = ColorEncoding.direct;
+
 		initPiecesAndPlaces ();
+		initPlacementVariables ();
 		initColors ();
 		initDiamonds ();
 
 		m_sat_comment = "simple encoding of an etch-matching puzzle\n" +
 				"with size " + m_grid_width + " x " + m_grid_height + "\n" +
 				(m_bounded ? "bounded" : "unbounded") + " and " + (m_signed ? "signed" : "unsigned") + ".\n";
+
+		m_encoding_threads = Runtime.getRuntime ().availableProcessors ();
+
+		m_piece_places_encoder   = null;
+		m_place_pieces_encoder   = null;
+		m_diamond_colors_encoder = new CardinalityEncoder (CardinalityEncoding.pairwise);
 	}
 
 	/*
@@ -96,65 +177,243 @@ public class ProblemEncodingSimple extends Problem
 	{
 		CNFFormula formula = new CNFFormula (m_sat_comment);
 
+		formula.declareVariables (getAmountOfSATVariables ());
+
+		encodeToSAT (formula);
+
+		return formula;
+	}
+
+	/*
+	 * function encoding our problem to sat, clauses are streamed into sink
+	 * --> sink may e.g. write them directly to a solver
+	 */
+	public void encodeToSAT (ClauseSink sink)
+	{
+		if (! isEncodable ()) {
+			throw new IllegalStateException ("encoding needs " + (m_variable_allocator.getAmountOfRequestedVariables () + getAmountOfAuxiliaryVariables ()) + " variables");
+		}
+
+		m_next_free_variable = m_sat_start_next_free_variable;
+
+		if (m_color_encoding == ColorEncoding.log) {
+			int[] virtual_starts  = {m_sat_start_border_diamonds, m_sat_start_center_diamonds};
+			int[] colors_counts   = {m_border_colors_count, m_center_colors_count};
+			int[] diamonds_counts = {m_border_diamonds_count, m_center_diamonds_count};
+			int[] bits_starts     = {m_sat_start_border_bits, m_sat_start_center_bits};
+			int[] bits_counts     = {m_border_color_bits, m_center_color_bits};
+
+			sink = new LogColorSink (sink, virtual_starts, colors_counts, diamonds_counts, bits_starts, bits_counts);
+		}
+
+		encodeClauses (sink);
+	}
+
+	/*
+	 * all clauses of the encoding, subclasses add theirs here
+	 * (y_kc may be virtual, see m_color_encoding)
+	 */
+	protected void encodeClauses (ClauseSink sink)
+	{
 		if (m_bounded) {
-			encodeCorners (formula);
-			encodeBorders (formula);
+			encodeCorners (sink);
+			encodeBorders (sink);
 		}
 		
-		encodeCenter (formula);
-		encodeDiamonds (formula);
+		encodeCenter (sink);
+		encodeDiamonds (sink);
+
+		if (m_encoding_threads > 1) {
+			encodeDiamondCorrelationParallel (sink);
+			return;
+		}
 
 		if (m_bounded) {
-			encodeCornerDiamondCorrelation (formula);
-			encodeBorderDiamondCorrelation (formula);
+			encodeCornerDiamondCorrelation (sink);
+			encodeBorderDiamondCorrelation (sink);
 		}
 
-		encodeCenterDiamondCorrelation (formula);
+		encodeCenterDiamondCorrelation (sink);
+	}
 
-		return formula;
+	/*
+	 * strategies of the "exactly one" constraints (see CardinalityEncoding),
+	 * null for pieces or places --> only "at least one"
+	 */
+	public void setPiecePlacesEncoding (CardinalityEncoding encoding)
+	{
+		m_piece_places_encoder = (encoding != null ? new CardinalityEncoder (encoding) : null);
+	}
+
+	public void setPlacePiecesEncoding (CardinalityEncoding encoding)
+	{
+		m_place_pieces_encoder = (encoding != null ? new CardinalityEncoder (encoding) : null);
+	}
+
+	public void setDiamondColorsEncoding (CardinalityEncoding encoding)
+	{
+		m_diamond_colors_encoder = new CardinalityEncoder (encoding != null ? encoding : CardinalityEncoding.pairwise);
 	}
 
 	/*
-	 * function decoding our sat-solution
+	 * direct or log encoding of the diamond colors
+	 * --> the variables are allocated again (the log encoding needs fewer)
 	 */
-	public void decodeSolution (CNFFormula formula)
+	public void setColorEncoding (ColorEncoding encoding)
 	{
-		if (! formula.isSolved ()) return;
+		m_color_encoding = encoding;
+
+		initPlacementVariables ();
+		initColorVariables ();
+	}
+
+	/*
+	 * amount of threads used by encodeToSAT (default: available processors)
+	 * --> the clauses are the same (and in the same order) for every amount
+	 */
+	public void setEncodingThreads (int threads)
+	{
+		m_encoding_threads = Math.max (threads, 1);
+	}
 
-		TreeSet<Integer> solution = new TreeSet<Integer> ();
+	/*
+	 * the correlation passes on a ForkJoinPool, the center pass split into ranges of pieces
+	 * --> each task writes into its own ClauseBuffer, the buffers are written to sink
+	 *  in the order of the sequential encoding
+	 *
+	 * the passes before allocate variables in the order encodings
+	 * and stay sequential
+	 */
+	protected void encodeDiamondCorrelationParallel (ClauseSink sink)
+	{
+		ArrayList<Callable<ClauseBuffer>> tasks = new ArrayList<Callable<ClauseBuffer>> ();
+
+		if (m_bounded) {
+			tasks.add (new Callable<ClauseBuffer> () {
+				public ClauseBuffer call ()
+				{
+					ClauseBuffer buffer = new ClauseBuffer ();
+					encodeCornerDiamondCorrelation (buffer);
+					return buffer;
+				}
+			});
+
+			tasks.add (new Callable<ClauseBuffer> () {
+				public ClauseBuffer call ()
+				{
+					ClauseBuffer buffer = new ClauseBuffer ();
+					encodeBorderDiamondCorrelation (buffer);
+					return buffer;
+				}
+			});
+		}
 
-		for (Integer i_literal : formula.getSolution ()) {
-			if (i_literal > 0) {
-				solution.add (i_literal);
+		final int[][] place_diamonds = getCenterPlaceDiamonds ();
+
+		int pieces_count = m_center_piece_numbers.size ();
+		int ranges_count = Math.min (4 * m_encoding_threads, Math.max (pieces_count, 1));
+
+		for (int i_range = 0; i_range < ranges_count; i_range ++) {
+			final int first_piece = (int) ((long) pieces_count * i_range / ranges_count);
+			final int last_piece  = (int) ((long) pieces_count * (i_range + 1) / ranges_count);
+
+			tasks.add (new Callable<ClauseBuffer> () {
+				public ClauseBuffer call ()
+				{
+					ClauseBuffer buffer = new ClauseBuffer ();
+					encodeCenterDiamondCorrelation (buffer, place_diamonds, first_piece, last_piece);
+					return buffer;
+				}
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool (m_encoding_threads);
+
+		try {
+			for (Future<ClauseBuffer> i_result : pool.invokeAll (tasks)) {
+				i_result.get ().writeTo (sink);
 			}
+		} catch (InterruptedException exception) {
+			throw new RuntimeException ("encoding interrupted", exception);
+		} catch (ExecutionException exception) {
+			throw new RuntimeException ("error during parallel encoding", exception.getCause ());
+		} finally {
+			pool.shutdown ();
 		}
+	}
+
+	public String getSATComment ()
+	{
+		return m_sat_comment;
+	}
 
+	/*
+	 * function decoding our sat-solution
+	 */
+	public void decodeSolution (CNFFormula formula)
+	{
+		if (! formula.isSolved ()) return;
+
+		decodeSolution (formula.getSolution ());
+	}
+
+	/*
+	 * function decoding a model of our encoding
+	 * (e.g. if the clauses were streamed and no CNFFormula exists)
+	 */
+	public void decodeSolution (Model solution)
+	{
 		m_solution_diamond_color_map = new TreeMap<Integer,Integer> ();
-		m_solution_grid              = new ArrayList<Piece> (m_grid_width * m_grid_height);
+		m_solution_grid              = new ArrayList<Piece> (Collections.nCopies (m_grid_width * m_grid_height, (Piece) null));
 
-		// decode literals
-		for (Integer i_literal : solution) {
-			if (i_literal < m_sat_start_border_diamonds) {
-				int place = convertSATVariableToPlace (i_literal);
-				int piece = convertSATVariableToPiece (i_literal);
+		// decode variables mapped to true
+		for (int i_variable = solution.nextTrueVariable (1); i_variable > 0; i_variable = solution.nextTrueVariable (i_variable + 1)) {
+			if (i_variable < m_sat_start_colors) {
+				int place = convertSATVariableToPlace (i_variable);
+				int piece = convertSATVariableToPiece (i_variable);
 
-				m_solution_grid.add (place, m_pieces.get (piece));
-			} else if (i_literal < m_sat_start_center_diamonds) {
-				int diamond = convertSATVariableToYkcBorderDiamond (i_literal);
-				int color   = convertSATVariableToYkcBorderColor (i_literal);
+				m_solution_grid.set (place, m_pieces.get (piece));
+			} else if (m_color_encoding == ColorEncoding.log) {
+				break;
+			} else if (i_variable < m_sat_start_center_diamonds) {
+				int diamond = convertSATVariableToYkcBorderDiamond (i_variable);
+				int color   = convertSATVariableToYkcBorderColor (i_variable);
 
 				m_solution_diamond_color_map.put (diamond, color);
-			} else if (i_literal < m_sat_start_next_free_variable) {
-				int diamond = convertSATVariableToYkcCenterDiamond (i_literal);
-				int color   = convertSATVariableToYkcCenterColor (i_literal);
+			} else if (i_variable < m_sat_start_next_free_variable) {
+				int diamond = convertSATVariableToYkcCenterDiamond (i_variable);
+				int color   = convertSATVariableToYkcCenterColor (i_variable);
 
 				m_solution_diamond_color_map.put (diamond, color);
+			} else {
+				break;
 			}
 		}
+
+		if (m_color_encoding == ColorEncoding.log) {
+			decodeColorBits (solution, m_sat_start_border_bits, m_border_color_bits, m_border_diamonds_map_backward, m_border_colors_map_backward);
+			decodeColorBits (solution, m_sat_start_center_bits, m_center_color_bits, m_center_diamonds_map_backward, m_center_colors_map_backward);
+		}
 		
 		rotatePieces ();
 	}
 
+	/*
+	 * colors of the diamonds of one range in the log encoding
+	 */
+	protected void decodeColorBits (Model solution, int firstBit, int bits, Map<Integer,Integer> diamondsMap, Map<Integer,Integer> colorsMap)
+	{
+		for (int i_diamond = 0; i_diamond < diamondsMap.size (); i_diamond ++) {
+			int color = 0;
+
+			for (int i_bit = 0; i_bit < bits; i_bit ++) {
+				if (solution.isTrue (firstBit + i_diamond * bits + i_bit)) color |= (1 << i_bit);
+			}
+
+			m_solution_diamond_color_map.put (diamondsMap.get (i_diamond), colorsMap.get (color));
+		}
+	}
+
 	/*
 	 * rotate pieces according to diamond colors
 	 */
@@ -195,206 +454,180 @@ public class ProblemEncodingSimple extends Problem
 	/*
 	 * create clauses concerning corner pieces and places
 	 */
-	protected void encodeCorners (CNFFormula formula)
+	protected void encodeCorners (ClauseSink sink)
 	{
-		// each corner piece has to be on at least one corner place
-		for (Integer i_piece : m_corner_piece_numbers) {
-			Clause tempClause = new Clause (m_corner_pieces_count);
+		encodePlacements (sink, m_corner_piece_numbers, m_corner_place_numbers);
+	}
 
-			for (Integer i_place : m_corner_place_numbers) {
-				tempClause.add (convertXijToSATVariable (i_piece, i_place));
-			}
+	/*
+	 * create clauses concerning border pieces and places
+	 */
+	protected void encodeBorders (ClauseSink sink)
+	{
+		encodePlacements (sink, m_border_piece_numbers, m_border_place_numbers);
+	}
 
-			formula.addClause (tempClause);
+	/*
+	 * create clauses concerning center pieces and places
+	 */
+	protected void encodeCenter (ClauseSink sink)
+	{
+		encodePlacements (sink, m_center_piece_numbers, m_center_place_numbers);
+	}
 
-			for (Integer i_place : m_border_place_numbers) {
-				int[] tempArray = {- convertXijToSATVariable (i_piece, i_place)};
-				formula.addClause (tempArray);
-			}
+	/*
+	 * pieces and places of one kind
+	 */
+	protected void encodePlacements (ClauseSink sink, ArrayList<Integer> pieceNumbers, ArrayList<Integer> placeNumbers)
+	{
+		int[] clause_buffer = new int [Math.max (pieceNumbers.size (), placeNumbers.size ())];
 
-			for (Integer i_place : m_center_place_numbers) {
-				int[] tempArray = {- convertXijToSATVariable (i_piece, i_place)};
-				formula.addClause (tempArray);
-			}
+		// each piece has to be on at least (exactly) one place
+		for (Integer i_piece : pieceNumbers) {
+			encodePiecePlaces (sink, i_piece, placeNumbers, clause_buffer);
 
-			// two equal pieces cannot be on the same place
-			for (Integer i_other_piece : m_corner_piece_numbers) {
-				if (i_piece == i_other_piece) continue;
-				if (! (m_pieces.get (i_piece).equals (m_pieces.get (i_other_piece)))) continue;
+			// two equal pieces cannot be on the same place (implied if a place has exactly one piece)
+			if (m_place_pieces_encoder != null) continue;
 
-				for (Integer i_place : m_corner_place_numbers) {
-					int[] tempArray = {- convertXijToSATVariable (i_piece, i_place),
-							   - convertXijToSATVariable (i_other_piece, i_place)};
-					formula.addClause (tempArray);
-				}
-			}
-		}
+			for (int i_other_piece : getEqualPieces (i_piece)) {
+				if (i_other_piece == i_piece) continue;
 
-		// each corner place has to contain at least one corner piece
-		for (Integer i_place : m_corner_place_numbers) {
-			Clause tempClause = new Clause (m_corner_pieces_count);
+				for (Integer i_place : placeNumbers) {
+					int placement       = convertXijToSATVariable (i_piece, i_place);
+					int other_placement = convertXijToSATVariable (i_other_piece, i_place);
 
-			for (Integer i_piece : m_corner_piece_numbers) {
-				tempClause.add (convertXijToSATVariable (i_piece, i_place));
-			}
+					if ((placement == 0) || (other_placement == 0)) continue;
 
-			formula.addClause (tempClause);
+					sink.addBinary (- placement, - other_placement);
+				}
+			}
 		}
 
+		// each place has to contain at least (exactly) one piece
+		for (Integer i_place : placeNumbers) {
+			encodePlacePieces (sink, pieceNumbers, i_place, clause_buffer);
+		}
 	}
 
 	/*
-	 * create clauses concerning border pieces and places
+	 * places of one piece
 	 */
-	protected void encodeBorders (CNFFormula formula)
+	protected void encodePiecePlaces (ClauseSink sink, int piece, ArrayList<Integer> placeNumbers, int[] clauseBuffer)
 	{
-		for (Integer i_piece : m_border_piece_numbers) {
-			Clause tempClause = new Clause (m_border_pieces_count);
+		int clause_length = 0;
 
-			for (Integer i_place : m_border_place_numbers) {
-				tempClause.add (convertXijToSATVariable (i_piece, i_place));
-			}
-
-			formula.addClause (tempClause);
+		for (Integer i_place : placeNumbers) {
+			int placement = convertXijToSATVariable (piece, i_place);
 
-			for (Integer i_place : m_corner_place_numbers) {
-				int[] tempArray = {- convertXijToSATVariable (i_piece, i_place)};
-				formula.addClause (tempArray);
-			}
-
-			for (Integer i_place : m_center_place_numbers) {
-				int[] tempArray = {- convertXijToSATVariable (i_piece, i_place)};
-				formula.addClause (tempArray);
-			}
-
-			// two equal pieces cannot be on the same place
-			for (Integer i_other_piece : m_border_piece_numbers) {
-				if (i_piece == i_other_piece) continue;
-				if (! (m_pieces.get (i_piece).equals (m_pieces.get (i_other_piece)))) continue;
-
-				for (Integer i_place : m_border_place_numbers) {
-					int[] tempArray = {- convertXijToSATVariable (i_piece, i_place),
-							   - convertXijToSATVariable (i_other_piece, i_place)};
-					formula.addClause (tempArray);
-				}
-			}
+			// impossible placements have no variable
+			if (placement != 0) clauseBuffer[clause_length ++] = placement;
 		}
 
-		for (Integer i_place : m_border_place_numbers) {
-			Clause tempClause = new Clause (m_border_pieces_count);
+		encodeOneOf (sink, m_piece_places_encoder, clauseBuffer, clause_length, placeNumbers.size ());
+	}
+
+	/*
+	 * pieces of one place, in the order of pieceNumbers
+	 */
+	protected void encodePlacePieces (ClauseSink sink, ArrayList<Integer> pieceNumbers, int place, int[] clauseBuffer)
+	{
+		int clause_length = 0;
 
-			for (Integer i_piece : m_border_piece_numbers) {
-				tempClause.add (convertXijToSATVariable (i_piece, i_place));
-			}
+		for (Integer i_piece : pieceNumbers) {
+			int placement = convertXijToSATVariable (i_piece, place);
 
-			formula.addClause (tempClause);
+			if (placement != 0) clauseBuffer[clause_length ++] = placement;
 		}
 
+		encodeOneOf (sink, m_place_pieces_encoder, clauseBuffer, clause_length, pieceNumbers.size ());
 	}
 
 	/*
-	 * create clauses concerning center pieces and places
+	 * at least one of literals, exactly one if encoder is set
+	 * --> the auxiliary variables of n literals are reserved, even if some were left out (pruning)
 	 */
-	protected void encodeCenter (CNFFormula formula)
+	protected void encodeOneOf (ClauseSink sink, CardinalityEncoder encoder, int[] literals, int length, int n)
 	{
-		for (Integer i_piece : m_center_piece_numbers) {
-			Clause tempClause = new Clause (m_center_pieces_count);
-
-			for (Integer i_place : m_center_place_numbers) {
-				tempClause.add (convertXijToSATVariable (i_piece, i_place));
-			}
+		if (encoder == null) {
+			sink.addClause (literals, length);
+			return;
+		}
 
-			formula.addClause (tempClause);
+		int first_variable = m_next_free_variable;
 
-			for (Integer i_place : m_corner_place_numbers) {
-				int[] tempArray = {- convertXijToSATVariable (i_piece, i_place)};
-				formula.addClause (tempArray);
-			}
+		m_next_free_variable += (int) encoder.getAmountOfAuxiliaryVariables (n);
 
-			for (Integer i_place : m_border_place_numbers) {
-				int[] tempArray = {- convertXijToSATVariable (i_piece, i_place)};
-				formula.addClause (tempArray);
-			}
+		encoder.encodeExactlyOne (sink, literals, length, first_variable);
+	}
 
-			// two equal pieces cannot be on the same place
-			for (Integer i_other_piece : m_center_piece_numbers) {
-				if (i_piece == i_other_piece) continue;
-				if (! (m_pieces.get (i_piece).equals (m_pieces.get (i_other_piece)))) continue;
+	protected void encodeDiamonds (ClauseSink sink)
+	{
+		encodeDiamondsBorder (sink);
+		encodeDiamondsCenter (sink);
+	}
 
-				for (Integer i_place : m_center_place_numbers) {
-					int[] tempArray = {- convertXijToSATVariable (i_piece, i_place),
-							   - convertXijToSATVariable (i_other_piece, i_place)};
-					formula.addClause (tempArray);
-				}
-			}
+	protected void encodeDiamondsBorder (ClauseSink sink)
+	{
+		if (m_color_encoding == ColorEncoding.log) {
+			encodeInvalidColorCodes (sink, m_sat_start_border_bits, m_border_diamonds_count, m_border_color_bits, m_border_colors_count);
+			return;
 		}
 
-		for (Integer i_place : m_center_place_numbers) {
-			Clause tempClause = new Clause (m_center_pieces_count);
+		int[] clause_buffer = new int [m_border_colors_count];
 
-			for (Integer i_piece : m_center_piece_numbers) {
-				tempClause.add (convertXijToSATVariable (i_piece, i_place));
+		// each border diamond has exactly one color
+		for (int i_diamond = 0; i_diamond < m_border_diamonds_count; i_diamond ++) {
+			for (int i_color = 0; i_color < m_border_colors_count; i_color ++) {
+				clause_buffer[i_color] = convertYkcBorderToSATVariable (i_diamond, i_color);
 			}
 
-			formula.addClause (tempClause);
+			encodeOneOf (sink, m_diamond_colors_encoder, clause_buffer, m_border_colors_count, m_border_colors_count);
 		}
-
-	}
-
-	protected void encodeDiamonds (CNFFormula formula)
-	{
-		encodeDiamondsBorder (formula);
-		encodeDiamondsCenter (formula);
 	}
 
-	protected void encodeDiamondsBorder (CNFFormula formula)
+	protected void encodeDiamondsCenter (ClauseSink sink)
 	{
-		// each border diamond has a color
-		for (int i_diamond = 0; i_diamond < m_border_diamonds_count; i_diamond ++) {
-			Clause tempClause = new Clause (m_border_colors_count);
-
-			for (int i_color = 0; i_color < m_border_colors_count; i_color ++) {
-				tempClause.add (convertYkcBorderToSATVariable (i_diamond, i_color));
+		if (m_color_encoding == ColorEncoding.log) {
+			encodeInvalidColorCodes (sink, m_sat_start_center_bits, m_center_diamonds_count, m_center_color_bits, m_center_colors_count);
+			return;
+		}
 
-				// each border diamond has just one color
-				for (int j_color = i_color + 1; j_color < m_border_colors_count; j_color ++) {
-					int[] tempArray = {- convertYkcBorderToSATVariable (i_diamond, i_color),
-							   - convertYkcBorderToSATVariable (i_diamond, j_color)};
+		int[] clause_buffer = new int [m_center_colors_count];
 
-					formula.addClause (tempArray);
-				}
+		// each center diamond has exactly one color
+		for (int i_diamond = 0; i_diamond < m_center_diamonds_count; i_diamond ++) {
+			for (int i_color = 0; i_color < m_center_colors_count; i_color ++) {
+				clause_buffer[i_color] = convertYkcCenterToSATVariable (i_diamond, i_color);
 			}
 
-			formula.addClause (tempClause);
+			encodeOneOf (sink, m_diamond_colors_encoder, clause_buffer, m_center_colors_count, m_center_colors_count);
 		}
 	}
 
-	protected void encodeDiamondsCenter (CNFFormula formula)
+	/*
+	 * log encoding: the bits of a diamond must not show a code >= colors
+	 */
+	protected void encodeInvalidColorCodes (ClauseSink sink, int firstBit, int diamonds, int bits, int colors)
 	{
-		// each center diamond has a color
-		for (int i_diamond = 0; i_diamond < m_center_diamonds_count; i_diamond ++) {
-			Clause tempClause = new Clause (m_center_colors_count);
-
-			for (int i_color = 0; i_color < m_center_colors_count; i_color ++) {
-				tempClause.add (convertYkcCenterToSATVariable (i_diamond, i_color));
+		int[] clause_buffer = new int [bits];
 
-				// each center diamond has just one color
-				for (int j_color = i_color + 1; j_color < m_center_colors_count; j_color ++) {
-					int[] tempArray = {- convertYkcCenterToSATVariable (i_diamond, i_color),
-							   - convertYkcCenterToSATVariable (i_diamond, j_color)};
+		for (int i_diamond = 0; i_diamond < diamonds; i_diamond ++) {
+			for (int i_code = colors; i_code < (1 << bits); i_code ++) {
+				for (int i_bit = 0; i_bit < bits; i_bit ++) {
+					int bit = firstBit + i_diamond * bits + i_bit;
 
-					formula.addClause (tempArray);
+					clause_buffer[i_bit] = (((i_code >> i_bit) & 1) != 0 ? - bit : bit);
 				}
-			}
 
-			formula.addClause (tempClause);
+				sink.addClause (clause_buffer, bits);
+			}
 		}
 	}
 
 	/*
 	 * encode correlation of placing a corner piece on a place and coloring connected diamonds
 	 */
-	protected void encodeCornerDiamondCorrelation (CNFFormula formula)
+	protected void encodeCornerDiamondCorrelation (ClauseSink sink)
 	{
 		// directions are named watching the piece/place with zeroes at top
 		int topleft_corner     = convertXYToPlaceNumber (0, 0);
@@ -411,51 +644,34 @@ public class ProblemEncodingSimple extends Problem
 		int bottomright_diamond_left  = m_border_diamonds_map_forward.get (getTopDiamondOfPlace (m_grid_width - 1, m_grid_height - 1));
 		int bottomright_diamond_right = m_border_diamonds_map_forward.get (getLeftDiamondOfPlace (m_grid_width - 1, m_grid_height - 1));
 
+		int[] corners        = {topleft_corner, topright_corner, bottomleft_corner, bottomright_corner};
+		int[] diamonds_left  = {topleft_diamond_left, topright_diamond_left, bottomleft_diamond_left, bottomright_diamond_left};
+		int[] diamonds_right = {topleft_diamond_right, topright_diamond_right, bottomleft_diamond_right, bottomright_diamond_right};
+
 		for (int i_piece : m_corner_piece_numbers) {
-			int color_left  = m_border_colors_map_forward.get (m_pieces.get (i_piece).getBorderColorLeft ());
-			int color_right = m_border_colors_map_forward.get (m_pieces.get (i_piece).getBorderColorRight ());
-
-			int[] tempArray00 = {- convertXijToSATVariable (i_piece, topleft_corner),
-				       convertYkcBorderToSATVariable (topleft_diamond_left, color_left)};
-			formula.addClause (tempArray00);
-			int[] tempArray01 = {- convertXijToSATVariable (i_piece, topleft_corner),
-				       convertYkcBorderToSATVariable (topleft_diamond_right, color_right)};
-			formula.addClause (tempArray01);
-
-			int[] tempArray02 = {- convertXijToSATVariable (i_piece, topright_corner),
-				       convertYkcBorderToSATVariable (topright_diamond_left, color_left)};
-			formula.addClause (tempArray02);
-			int[] tempArray03 = {- convertXijToSATVariable (i_piece, topright_corner),
-				       convertYkcBorderToSATVariable (topright_diamond_right, color_right)};
-			formula.addClause (tempArray03);
-
-			int[] tempArray04 = {- convertXijToSATVariable (i_piece, bottomleft_corner),
-				       convertYkcBorderToSATVariable (bottomleft_diamond_left, color_left)};
-			formula.addClause (tempArray04);
-			int[] tempArray05 = {- convertXijToSATVariable (i_piece, bottomleft_corner),
-				       convertYkcBorderToSATVariable (bottomleft_diamond_right, color_right)};
-			formula.addClause (tempArray05);
-
-			int[] tempArray06 = {- convertXijToSATVariable (i_piece, bottomright_corner),
-				       convertYkcBorderToSATVariable (bottomright_diamond_left, color_left)};
-			formula.addClause (tempArray06);
-			int[] tempArray07 = {- convertXijToSATVariable (i_piece, bottomright_corner),
-				       convertYkcBorderToSATVariable (bottomright_diamond_right, color_right)};
-			formula.addClause (tempArray07);
+			int color_left  = m_border_colors_map_forward.get (m_piece_set.getBorderColorLeft (i_piece));
+			int color_right = m_border_colors_map_forward.get (m_piece_set.getBorderColorRight (i_piece));
+
+			for (int i_corner = 0; i_corner < 4; i_corner ++) {
+				int placement = convertXijToSATVariable (i_piece, corners[i_corner]);
+
+				if (placement == 0) continue;
+
+				sink.addBinary (- placement, convertYkcBorderToSATVariable (diamonds_left[i_corner], color_left));
+				sink.addBinary (- placement, convertYkcBorderToSATVariable (diamonds_right[i_corner], color_right));
+			}
 		}
 	}
 
 	/*
 	 * encode correlation of placing a border piece on a place and coloring connected diamonds
 	 */
-	protected void encodeBorderDiamondCorrelation (CNFFormula formula)
+	protected void encodeBorderDiamondCorrelation (ClauseSink sink)
 	{
 		for (int i_piece : m_border_piece_numbers) {
-			Piece currentPiece = m_pieces.get (i_piece);
-
-			int color_left   = m_border_colors_map_forward.get (currentPiece.getBorderColorLeft ());
-			int color_right  = m_border_colors_map_forward.get (currentPiece.getBorderColorRight ());
-			int color_bottom = m_center_colors_map_forward.get (currentPiece.getBorderColorBottem ());
+			int color_left   = m_border_colors_map_forward.get (m_piece_set.getBorderColorLeft (i_piece));
+			int color_right  = m_border_colors_map_forward.get (m_piece_set.getBorderColorRight (i_piece));
+			int color_bottom = m_center_colors_map_forward.get (m_piece_set.getBorderColorBottom (i_piece));
 
 			// top and bottom row
 			for (int i_x = 1; i_x < m_grid_width - 1; i_x ++) {
@@ -469,25 +685,21 @@ public class ProblemEncodingSimple extends Problem
 				int bottom_diamond_right     = m_border_diamonds_map_forward.get (getLeftDiamondOfPlace (i_x, m_grid_height - 1));
 				int bottom_diamond_bottom    = m_center_diamonds_map_forward.get (getTopDiamondOfPlace (i_x, m_grid_height - 1));
 
-				int[] tempArray00 = {- convertXijToSATVariable (i_piece, top_place),
-						       convertYkcBorderToSATVariable (top_diamond_left, color_left)};
-				formula.addClause (tempArray00);
-				int[] tempArray01 = {- convertXijToSATVariable (i_piece, top_place),
-						       convertYkcBorderToSATVariable (top_diamond_right, color_right)};
-				formula.addClause (tempArray01);
-				int[] tempArray02 = {- convertXijToSATVariable (i_piece, top_place),
-						       convertYkcCenterToSATVariable (top_diamond_bottom, color_bottom)};
-				formula.addClause (tempArray02);
-
-				int[] tempArray10 = {- convertXijToSATVariable (i_piece, bottom_place),
-						       convertYkcBorderToSATVariable (bottom_diamond_left, color_left)};
-				formula.addClause (tempArray10);
-				int[] tempArray11 = {- convertXijToSATVariable (i_piece, bottom_place),
-						       convertYkcBorderToSATVariable (bottom_diamond_right, color_right)};
-				formula.addClause (tempArray11);
-				int[] tempArray12 = {- convertXijToSATVariable (i_piece, bottom_place),
-						       convertYkcCenterToSATVariable (bottom_diamond_bottom, color_bottom)};
-				formula.addClause (tempArray12);
+				int top_placement = convertXijToSATVariable (i_piece, top_place);
+
+				if (top_placement != 0) {
+					sink.addBinary (- top_placement, convertYkcBorderToSATVariable (top_diamond_left, color_left));
+					sink.addBinary (- top_placement, convertYkcBorderToSATVariable (top_diamond_right, color_right));
+					sink.addBinary (- top_placement, convertYkcCenterToSATVariable (top_diamond_bottom, color_bottom));
+				}
+
+				int bottom_placement = convertXijToSATVariable (i_piece, bottom_place);
+
+				if (bottom_placement != 0) {
+					sink.addBinary (- bottom_placement, convertYkcBorderToSATVariable (bottom_diamond_left, color_left));
+					sink.addBinary (- bottom_placement, convertYkcBorderToSATVariable (bottom_diamond_right, color_right));
+					sink.addBinary (- bottom_placement, convertYkcCenterToSATVariable (bottom_diamond_bottom, color_bottom));
+				}
 			}
 
 			// left and right column
@@ -502,25 +714,21 @@ public class ProblemEncodingSimple extends Problem
 				int right_diamond_right     = m_border_diamonds_map_forward.get (getBottomDiamondOfPlace (m_grid_width - 1, i_y));
 				int right_diamond_bottom    = m_center_diamonds_map_forward.get (getLeftDiamondOfPlace (m_grid_width - 1, i_y));
 
-				int[] tempArray00 = {- convertXijToSATVariable (i_piece, left_place),
-						       convertYkcBorderToSATVariable (left_diamond_left, color_left)};
-				formula.addClause (tempArray00);
-				int[] tempArray01 = {- convertXijToSATVariable (i_piece, left_place),
-						       convertYkcBorderToSATVariable (left_diamond_right, color_right)};
-				formula.addClause (tempArray01);
-				int[] tempArray02 = {- convertXijToSATVariable (i_piece, left_place),
-						       convertYkcCenterToSATVariable (left_diamond_bottom, color_bottom)};
-				formula.addClause (tempArray02);
-
-				int[] tempArray10 = {- convertXijToSATVariable (i_piece, right_place),
-						       convertYkcBorderToSATVariable (right_diamond_left, color_left)};
-				formula.addClause (tempArray10);
-				int[] tempArray11 = {- convertXijToSATVariable (i_piece, right_place),
-						       convertYkcBorderToSATVariable (right_diamond_right, color_right)};
-				formula.addClause (tempArray11);
-				int[] tempArray12 = {- convertXijToSATVariable (i_piece, right_place),
-						       convertYkcCenterToSATVariable (right_diamond_bottom, color_bottom)};
-				formula.addClause (tempArray12);
+				int left_placement = convertXijToSATVariable (i_piece, left_place);
+
+				if (left_placement != 0) {
+					sink.addBinary (- left_placement, convertYkcBorderToSATVariable (left_diamond_left, color_left));
+					sink.addBinary (- left_placement, convertYkcBorderToSATVariable (left_diamond_right, color_right));
+					sink.addBinary (- left_placement, convertYkcCenterToSATVariable (left_diamond_bottom, color_bottom));
+				}
+
+				int right_placement = convertXijToSATVariable (i_piece, right_place);
+
+				if (right_placement != 0) {
+					sink.addBinary (- right_placement, convertYkcBorderToSATVariable (right_diamond_left, color_left));
+					sink.addBinary (- right_placement, convertYkcBorderToSATVariable (right_diamond_right, color_right));
+					sink.addBinary (- right_placement, convertYkcCenterToSATVariable (right_diamond_bottom, color_bottom));
+				}
 			}
 		}
 	}
@@ -528,15 +736,22 @@ public class ProblemEncodingSimple extends Problem
 	/*
 	 * encode correlation of center piece placement and center diamonds color
 	 */
-	protected void encodeCenterDiamondCorrelation (CNFFormula formula)
+	protected void encodeCenterDiamondCorrelation (ClauseSink sink)
+	{
+		encodeCenterDiamondCorrelation (sink, getCenterPlaceDiamonds (), 0, m_center_piece_numbers.size ());
+	}
+
+	/*
+	 * diamonds around each place (left, right, top, bottom), -1 at the edge of the grid
+	 * --> looked up once instead of once per piece
+	 */
+	protected int[][] getCenterPlaceDiamonds ()
 	{
 		int x_0;
 		int y_0;
 		int x_end;
 		int y_end;
 
-		ArrayList<Integer> current_colors = new ArrayList<Integer> (4);
-
 		// bounds of center pieces
 		if (m_bounded) {
 			x_0   = 1;
@@ -550,21 +765,55 @@ public class ProblemEncodingSimple extends Problem
 			y_end = m_grid_height - 1;
 		}
 
+		int places_count = m_grid_width * m_grid_height;
+
+		int[] place_diamond_left   = new int [places_count];
+		int[] place_diamond_right  = new int [places_count];
+		int[] place_diamond_top    = new int [places_count];
+		int[] place_diamond_bottom = new int [places_count];
+
+		for (int i_x = x_0; i_x <= x_end; i_x ++) {
+			for (int i_y = y_0; i_y <= y_end; i_y ++) {
+				int current_place = convertXYToPlaceNumber (i_x, i_y);
+
+				place_diamond_left[current_place]   = (i_x > 0                 ? m_center_diamonds_map_forward.get (getLeftDiamondOfPlace   (i_x, i_y)) : -1);
+				place_diamond_right[current_place]  = (i_x < m_grid_width - 1  ? m_center_diamonds_map_forward.get (getRightDiamondOfPlace  (i_x, i_y)) : -1);
+				place_diamond_top[current_place]    = (i_y > 0                 ? m_center_diamonds_map_forward.get (getTopDiamondOfPlace    (i_x, i_y)) : -1);
+				place_diamond_bottom[current_place] = (i_y < m_grid_height - 1 ? m_center_diamonds_map_forward.get (getBottomDiamondOfPlace (i_x, i_y)) : -1);
+			}
+		}
+
+		return new int[][] {place_diamond_left, place_diamond_right, place_diamond_top, place_diamond_bottom};
+	}
+
+	/*
+	 * correlation of the center pieces firstPiece, ..., lastPiece - 1 (indices in m_center_piece_numbers)
+	 * --> only reads the encoding, so ranges can be encoded concurrently
+	 */
+	protected void encodeCenterDiamondCorrelation (ClauseSink sink, int[][] placeDiamonds, int firstPiece, int lastPiece)
+	{
+		int x_0   = (m_bounded ? 1 : 0);
+		int y_0   = (m_bounded ? 1 : 0);
+		int x_end = (m_bounded ? m_grid_width  - 2 : m_grid_width  - 1);
+		int y_end = (m_bounded ? m_grid_height - 2 : m_grid_height - 1);
+
+		int[] mapped_colors = new int [4];
+		int[] clause_buffer = new int [5];
+
+		int[] place_diamond_left   = placeDiamonds[0];
+		int[] place_diamond_right  = placeDiamonds[1];
+		int[] place_diamond_top    = placeDiamonds[2];
+		int[] place_diamond_bottom = placeDiamonds[3];
+
 		// encode each piece
-		for (int i_piece : m_center_piece_numbers) {
-			Piece current_piece = m_pieces.get (i_piece);
+		for (int i_piece_index = firstPiece; i_piece_index < lastPiece; i_piece_index ++) {
+			int i_piece      = m_center_piece_numbers.get (i_piece_index);
 			// classification
-			int   current_type  = current_piece.getClassification (current_colors);
+			int current_type = m_piece_set.getClassification (i_piece);
 
 			// current colors for sat
-			/*
-			for (Integer i_color : current_colors) {
-				i_color = m_center_colors_map_forward.get (i_color);
-			}
-			*/
-			for (int i = 0; i < current_colors.size (); i++) {
-				int mapped_color = m_center_colors_map_forward.get (current_colors.get (i));
-				current_colors.set (i, mapped_color);
+			for (int i = 0; i < m_piece_set.getClassificationColorsCount (i_piece); i++) {
+				mapped_colors[i] = m_center_colors_map_forward.get (m_piece_set.getClassificationColor (i_piece, i));
 			}
 
 			// for each position
@@ -574,32 +823,34 @@ public class ProblemEncodingSimple extends Problem
 					// SAT-Variable for current placement
 					int current_piece_placement = convertXijToSATVariable (i_piece, current_place);
 
-					int diamond_left   = (i_x > 0                 ? m_center_diamonds_map_forward.get (getLeftDiamondOfPlace   (i_x, i_y)) : -1);;
-					int diamond_right  = (i_x < m_grid_width - 1  ? m_center_diamonds_map_forward.get (getRightDiamondOfPlace  (i_x, i_y)) : -1);;
-					int diamond_top    = (i_y > 0                 ? m_center_diamonds_map_forward.get (getTopDiamondOfPlace    (i_x, i_y)) : -1);;
-					int diamond_bottom = (i_y < m_grid_height - 1 ? m_center_diamonds_map_forward.get (getBottomDiamondOfPlace (i_x, i_y)) : -1);;
+					if (current_piece_placement == 0) continue;
+
+					int diamond_left   = place_diamond_left[current_place];
+					int diamond_right  = place_diamond_right[current_place];
+					int diamond_top    = place_diamond_top[current_place];
+					int diamond_bottom = place_diamond_bottom[current_place];
 
 					switch (current_type) {
 						case 1:
-							encodeCenterDiamondCorrelationType1 (formula, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, current_colors);
+							encodeCenterDiamondCorrelationType1 (sink, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, mapped_colors, clause_buffer);
 							break;
 						case 2:
-							encodeCenterDiamondCorrelationType2 (formula, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, current_colors);
+							encodeCenterDiamondCorrelationType2 (sink, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, mapped_colors, clause_buffer);
 							break;
 						case 3:
-							encodeCenterDiamondCorrelationType3 (formula, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, current_colors);
+							encodeCenterDiamondCorrelationType3 (sink, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, mapped_colors, clause_buffer);
 							break;
 						case 4:
-							encodeCenterDiamondCorrelationType4 (formula, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, current_colors);
+							encodeCenterDiamondCorrelationType4 (sink, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, mapped_colors, clause_buffer);
 							break;
 						case 5:
-							encodeCenterDiamondCorrelationType5 (formula, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, current_colors);
+							encodeCenterDiamondCorrelationType5 (sink, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, mapped_colors, clause_buffer);
 							break;
 						case 6:
-							encodeCenterDiamondCorrelationType6 (formula, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, current_colors);
+							encodeCenterDiamondCorrelationType6 (sink, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, mapped_colors, clause_buffer);
 							break;
 						case 7:
-							encodeCenterDiamondCorrelationType7 (formula, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, current_colors);
+							encodeCenterDiamondCorrelationType7 (sink, current_piece_placement, diamond_left, diamond_right, diamond_top, diamond_bottom, mapped_colors, clause_buffer);
 							break;
 					}
 				}
@@ -608,490 +859,420 @@ public class ProblemEncodingSimple extends Problem
 		}
 	}
 
-	protected final void encodeCenterDiamondCorrelationType1 (CNFFormula formula, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, ArrayList<Integer> colors)
+	protected final void encodeCenterDiamondCorrelationType1 (ClauseSink sink, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, int[] colors, int[] clause_buffer)
 	{
 		if (diamond_left >= 0) {
-			int[] temp_array = {- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addBinary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[0]));
 		}
 		if (diamond_right >= 0) {
-			int[] temp_array = {- xij_variable, convertYkcCenterToSATVariable (diamond_right, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addBinary (- xij_variable, convertYkcCenterToSATVariable (diamond_right, colors[0]));
 		}
 		if (diamond_top >= 0) {
-			int[] temp_array = {- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addBinary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[0]));
 		}
 		if (diamond_bottom >= 0) {
-			int[] temp_array = {- xij_variable, convertYkcCenterToSATVariable (diamond_bottom, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addBinary (- xij_variable, convertYkcCenterToSATVariable (diamond_bottom, colors[0]));
 		}
 	}
 
-	protected final void encodeCenterDiamondCorrelationType2 (CNFFormula formula, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, ArrayList<Integer> colors)
+	protected final void encodeCenterDiamondCorrelationType2 (ClauseSink sink, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, int[] colors, int[] clause_buffer)
 	{
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[0]), convertYkcCenterToSATVariable (diamond_top, colors[0]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[0]), convertYkcCenterToSATVariable (diamond_right, colors[0]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_right, colors[0]), convertYkcCenterToSATVariable (diamond_bottom, colors[0]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_bottom, colors[0]), convertYkcCenterToSATVariable (diamond_left, colors[0]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[0]), convertYkcCenterToSATVariable (diamond_right, colors[0]));
 		}
 		if ((diamond_top >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[0]), convertYkcCenterToSATVariable (diamond_bottom, colors[0]));
 		}
 
 		if ((diamond_top >= 0) && (diamond_right >= 0) && (diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (1))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_top, colors[1]);
+			clause_buffer[2] = convertYkcCenterToSATVariable (diamond_right, colors[1]);
+			clause_buffer[3] = convertYkcCenterToSATVariable (diamond_bottom, colors[1]);
+			clause_buffer[4] = convertYkcCenterToSATVariable (diamond_left, colors[1]);
+			sink.addClause (clause_buffer, 5);
 		}
 	}
 
-	protected final void encodeCenterDiamondCorrelationType3 (CNFFormula formula, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, ArrayList<Integer> colors)
+	protected final void encodeCenterDiamondCorrelationType3 (ClauseSink sink, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, int[] colors, int[] clause_buffer)
 	{
 		if ((diamond_left >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[0]), convertYkcCenterToSATVariable (diamond_right, colors[0]));
 		}
 		if ((diamond_top >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[0]), convertYkcCenterToSATVariable (diamond_bottom, colors[0]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[1]), convertYkcCenterToSATVariable (diamond_right, colors[1]));
 		}
 		if ((diamond_top >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[1]), convertYkcCenterToSATVariable (diamond_bottom, colors[1]));
 		}
 	}
 
-	protected final void encodeCenterDiamondCorrelationType4 (CNFFormula formula, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, ArrayList<Integer> colors)
+	protected final void encodeCenterDiamondCorrelationType4 (ClauseSink sink, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, int[] colors, int[] clause_buffer)
 	{
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[0]), convertYkcCenterToSATVariable (diamond_top, colors[0]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[0]), convertYkcCenterToSATVariable (diamond_right, colors[0]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_right, colors[0]), convertYkcCenterToSATVariable (diamond_bottom, colors[0]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_bottom, colors[0]), convertYkcCenterToSATVariable (diamond_left, colors[0]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[1]), convertYkcCenterToSATVariable (diamond_top, colors[1]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[1]), convertYkcCenterToSATVariable (diamond_right, colors[1]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_right, colors[1]), convertYkcCenterToSATVariable (diamond_bottom, colors[1]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_bottom, colors[1]), convertYkcCenterToSATVariable (diamond_left, colors[1]));
 		}
 	}
 
-	protected final void encodeCenterDiamondCorrelationType5 (CNFFormula formula, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, ArrayList<Integer> colors)
+	protected final void encodeCenterDiamondCorrelationType5 (ClauseSink sink, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, int[] colors, int[] clause_buffer)
 	{
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_left,   colors.get (1)),
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[1]), -convertYkcCenterToSATVariable (diamond_top, colors[2]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[1]), -convertYkcCenterToSATVariable (diamond_right, colors[2]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_right,  colors.get (1)),
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_right, colors[1]), -convertYkcCenterToSATVariable (diamond_bottom, colors[2]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_bottom, colors.get (1)),
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_bottom, colors[1]), -convertYkcCenterToSATVariable (diamond_left, colors[2]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_top,    colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_left, colors[1]), convertYkcCenterToSATVariable (diamond_top, colors[2]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_right,  colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_top, colors[1]), convertYkcCenterToSATVariable (diamond_right, colors[2]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_bottom, colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_right, colors[1]), convertYkcCenterToSATVariable (diamond_bottom, colors[2]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_left,   colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_bottom, colors[1]), convertYkcCenterToSATVariable (diamond_left, colors[2]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[0]), convertYkcCenterToSATVariable (diamond_right, colors[0]));
 		}
 		if ((diamond_top >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[0]), convertYkcCenterToSATVariable (diamond_bottom, colors[0]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_left,   colors.get (2)),
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (0)),
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (0))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_left, colors[2]);
+			clause_buffer[2] = -convertYkcCenterToSATVariable (diamond_top, colors[0]);
+			clause_buffer[3] = -convertYkcCenterToSATVariable (diamond_right, colors[0]);
+			sink.addClause (clause_buffer, 4);
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_top,    colors.get (2)),
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (0)),
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (0))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_top, colors[2]);
+			clause_buffer[2] = -convertYkcCenterToSATVariable (diamond_right, colors[0]);
+			clause_buffer[3] = -convertYkcCenterToSATVariable (diamond_bottom, colors[0]);
+			sink.addClause (clause_buffer, 4);
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_right,  colors.get (2)),
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (0)),
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (0))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_right, colors[2]);
+			clause_buffer[2] = -convertYkcCenterToSATVariable (diamond_bottom, colors[0]);
+			clause_buffer[3] = -convertYkcCenterToSATVariable (diamond_left, colors[0]);
+			sink.addClause (clause_buffer, 4);
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_bottom, colors.get (2)),
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (0)),
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (0))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_bottom, colors[2]);
+			clause_buffer[2] = -convertYkcCenterToSATVariable (diamond_left, colors[0]);
+			clause_buffer[3] = -convertYkcCenterToSATVariable (diamond_top, colors[0]);
+			sink.addClause (clause_buffer, 4);
 		}
 
 
 	}
 
-	protected final void encodeCenterDiamondCorrelationType6 (CNFFormula formula, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, ArrayList<Integer> colors)
+	protected final void encodeCenterDiamondCorrelationType6 (ClauseSink sink, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, int[] colors, int[] clause_buffer)
 	{
 		if ((diamond_left >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_right,  colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_left, colors[1]), convertYkcCenterToSATVariable (diamond_right, colors[2]));
 		}
 		if ((diamond_top >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_bottom, colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_top, colors[1]), convertYkcCenterToSATVariable (diamond_bottom, colors[2]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (2)),
-				 convertYkcCenterToSATVariable (diamond_right,  colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_left, colors[2]), convertYkcCenterToSATVariable (diamond_right, colors[1]));
 		}
 		if ((diamond_top >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (2)),
-				 convertYkcCenterToSATVariable (diamond_bottom, colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_top, colors[2]), convertYkcCenterToSATVariable (diamond_bottom, colors[1]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_left,   colors.get (1)),
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[1]), -convertYkcCenterToSATVariable (diamond_right, colors[2]));
 		}
 		if ((diamond_top >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[1]), -convertYkcCenterToSATVariable (diamond_bottom, colors[2]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_left,   colors.get (2)),
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[2]), -convertYkcCenterToSATVariable (diamond_right, colors[1]));
 		}
 		if ((diamond_top >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				 convertYkcCenterToSATVariable (diamond_top,    colors.get (2)),
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[2]), -convertYkcCenterToSATVariable (diamond_bottom, colors[1]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_left, colors[0]), convertYkcCenterToSATVariable (diamond_top, colors[0]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_top, colors[0]), convertYkcCenterToSATVariable (diamond_right, colors[0]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_right, colors[0]), convertYkcCenterToSATVariable (diamond_bottom, colors[0]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, convertYkcCenterToSATVariable (diamond_bottom, colors[0]), convertYkcCenterToSATVariable (diamond_left, colors[0]));
 		}
 
 		// positive rotation clauses
 		if ((diamond_top >= 0) && (diamond_right >= 0) && (diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (1))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_top, colors[1]);
+			clause_buffer[2] = convertYkcCenterToSATVariable (diamond_right, colors[1]);
+			clause_buffer[3] = convertYkcCenterToSATVariable (diamond_bottom, colors[1]);
+			clause_buffer[4] = convertYkcCenterToSATVariable (diamond_left, colors[1]);
+			sink.addClause (clause_buffer, 5);
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0) && (diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (2)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (2)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (2)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (2))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_top, colors[2]);
+			clause_buffer[2] = convertYkcCenterToSATVariable (diamond_right, colors[2]);
+			clause_buffer[3] = convertYkcCenterToSATVariable (diamond_bottom, colors[2]);
+			clause_buffer[4] = convertYkcCenterToSATVariable (diamond_left, colors[2]);
+			sink.addClause (clause_buffer, 5);
 		}
 	}
 
-	protected final void encodeCenterDiamondCorrelationType7 (CNFFormula formula, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, ArrayList<Integer> colors)
+	protected final void encodeCenterDiamondCorrelationType7 (ClauseSink sink, int xij_variable, int diamond_left, int diamond_right, int diamond_top, int diamond_bottom, int[] colors, int[] clause_buffer)
 	{
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (0)),
-				 convertYkcCenterToSATVariable (diamond_top,    colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_left, colors[0]), convertYkcCenterToSATVariable (diamond_top, colors[1]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (0)),
-				 convertYkcCenterToSATVariable (diamond_right,  colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_top, colors[0]), convertYkcCenterToSATVariable (diamond_right, colors[1]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (0)),
-				 convertYkcCenterToSATVariable (diamond_bottom, colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_right, colors[0]), convertYkcCenterToSATVariable (diamond_bottom, colors[1]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (0)),
-				 convertYkcCenterToSATVariable (diamond_left,   colors.get (1))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_bottom, colors[0]), convertYkcCenterToSATVariable (diamond_left, colors[1]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_top,    colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_left, colors[1]), convertYkcCenterToSATVariable (diamond_top, colors[2]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_right,  colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_top, colors[1]), convertYkcCenterToSATVariable (diamond_right, colors[2]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_bottom, colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_right, colors[1]), convertYkcCenterToSATVariable (diamond_bottom, colors[2]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (1)),
-				 convertYkcCenterToSATVariable (diamond_left,   colors.get (2))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_bottom, colors[1]), convertYkcCenterToSATVariable (diamond_left, colors[2]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (2)),
-				 convertYkcCenterToSATVariable (diamond_top,    colors.get (3))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_left, colors[2]), convertYkcCenterToSATVariable (diamond_top, colors[3]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (2)),
-				 convertYkcCenterToSATVariable (diamond_right,  colors.get (3))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_top, colors[2]), convertYkcCenterToSATVariable (diamond_right, colors[3]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (2)),
-				 convertYkcCenterToSATVariable (diamond_bottom, colors.get (3))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_right, colors[2]), convertYkcCenterToSATVariable (diamond_bottom, colors[3]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (2)),
-				 convertYkcCenterToSATVariable (diamond_left,   colors.get (3))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_bottom, colors[2]), convertYkcCenterToSATVariable (diamond_left, colors[3]));
 		}
 
 		if ((diamond_left >= 0) && (diamond_top >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_left,   colors.get (3)),
-				 convertYkcCenterToSATVariable (diamond_top,    colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_left, colors[3]), convertYkcCenterToSATVariable (diamond_top, colors[0]));
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_top,    colors.get (3)),
-				 convertYkcCenterToSATVariable (diamond_right,  colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_top, colors[3]), convertYkcCenterToSATVariable (diamond_right, colors[0]));
 		}
 		if ((diamond_right >= 0) && (diamond_bottom >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_right,  colors.get (3)),
-				 convertYkcCenterToSATVariable (diamond_bottom, colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_right, colors[3]), convertYkcCenterToSATVariable (diamond_bottom, colors[0]));
 		}
 		if ((diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				-convertYkcCenterToSATVariable (diamond_bottom, colors.get (3)),
-				 convertYkcCenterToSATVariable (diamond_left,   colors.get (0))};
-			formula.addClause (temp_array);
+			sink.addTernary (- xij_variable, -convertYkcCenterToSATVariable (diamond_bottom, colors[3]), convertYkcCenterToSATVariable (diamond_left, colors[0]));
 		}
 
 		// positive rotation clauses
 		if ((diamond_top >= 0) && (diamond_right >= 0) && (diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (0)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (0))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_top, colors[0]);
+			clause_buffer[2] = convertYkcCenterToSATVariable (diamond_right, colors[0]);
+			clause_buffer[3] = convertYkcCenterToSATVariable (diamond_bottom, colors[0]);
+			clause_buffer[4] = convertYkcCenterToSATVariable (diamond_left, colors[0]);
+			sink.addClause (clause_buffer, 5);
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0) && (diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (1)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (1))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_top, colors[1]);
+			clause_buffer[2] = convertYkcCenterToSATVariable (diamond_right, colors[1]);
+			clause_buffer[3] = convertYkcCenterToSATVariable (diamond_bottom, colors[1]);
+			clause_buffer[4] = convertYkcCenterToSATVariable (diamond_left, colors[1]);
+			sink.addClause (clause_buffer, 5);
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0) && (diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (2)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (2)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (2)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (2))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_top, colors[2]);
+			clause_buffer[2] = convertYkcCenterToSATVariable (diamond_right, colors[2]);
+			clause_buffer[3] = convertYkcCenterToSATVariable (diamond_bottom, colors[2]);
+			clause_buffer[4] = convertYkcCenterToSATVariable (diamond_left, colors[2]);
+			sink.addClause (clause_buffer, 5);
 		}
 		if ((diamond_top >= 0) && (diamond_right >= 0) && (diamond_bottom >= 0) && (diamond_left >= 0)) {
-			int[] temp_array = {- xij_variable,
-				convertYkcCenterToSATVariable (diamond_top,    colors.get (3)),
-				convertYkcCenterToSATVariable (diamond_right,  colors.get (3)),
-				convertYkcCenterToSATVariable (diamond_bottom, colors.get (3)),
-				convertYkcCenterToSATVariable (diamond_left,   colors.get (3))};
-			formula.addClause (temp_array);
+			clause_buffer[0] = - xij_variable;
+			clause_buffer[1] = convertYkcCenterToSATVariable (diamond_top, colors[3]);
+			clause_buffer[2] = convertYkcCenterToSATVariable (diamond_right, colors[3]);
+			clause_buffer[3] = convertYkcCenterToSATVariable (diamond_bottom, colors[3]);
+			clause_buffer[4] = convertYkcCenterToSATVariable (diamond_left, colors[3]);
+			sink.addClause (clause_buffer, 5);
 		}
 	}
 
+	/*
+	 * amount of sat-variables used by this encoding
+	 * --> known before encoding, variables are {1, ..., result}
+	 *  (the auxiliary variables of the cardinality encoders follow the allocated ones)
+	 */
+	public int getAmountOfSATVariables ()
+	{
+		return (int) (m_variable_allocator.getAmountOfVariables () + getAmountOfAuxiliaryVariables ());
+	}
+
+	/*
+	 * false if the encoding needs more variables than DIMACS allows
+	 */
+	public boolean isEncodable ()
+	{
+		if (m_variable_allocator.hasOverflowed ()) return false;
+
+		long variables = m_variable_allocator.getAmountOfRequestedVariables () + getAmountOfAuxiliaryVariables ();
+
+		// the virtual y_kc have to stay above the real variables
+		if (m_color_encoding == ColorEncoding.log) variables += getAmountOfDirectColorVariables () + 1;
+
+		return (variables <= VariableAllocator.m_max_variable);
+	}
+
+	/*
+	 * auxiliary variables of the "exactly one" constraints with the current strategies
+	 */
+	protected long getAmountOfAuxiliaryVariables ()
+	{
+		return getAmountOfPlacementAuxiliaryVariables () + getAmountOfColorAuxiliaryVariables ();
+	}
+
+	protected long getAmountOfPlacementAuxiliaryVariables ()
+	{
+		long result = 0;
+
+		result += getAmountOfAuxiliaryVariables (m_piece_places_encoder, m_corner_pieces_count, m_corner_pieces_count);
+		result += getAmountOfAuxiliaryVariables (m_place_pieces_encoder, m_corner_pieces_count, m_corner_pieces_count);
+		result += getAmountOfAuxiliaryVariables (m_piece_places_encoder, m_border_pieces_count, m_border_pieces_count);
+		result += getAmountOfAuxiliaryVariables (m_place_pieces_encoder, m_border_pieces_count, m_border_pieces_count);
+		result += getAmountOfAuxiliaryVariables (m_piece_places_encoder, m_center_pieces_count, m_center_pieces_count);
+		result += getAmountOfAuxiliaryVariables (m_place_pieces_encoder, m_center_pieces_count, m_center_pieces_count);
+
+		return result;
+	}
+
+	protected long getAmountOfColorAuxiliaryVariables ()
+	{
+		if (m_color_encoding == ColorEncoding.log) return 0;
+
+		long result = 0;
+
+		result += getAmountOfAuxiliaryVariables (m_diamond_colors_encoder, m_border_diamonds_count, m_border_colors_count);
+		result += getAmountOfAuxiliaryVariables (m_diamond_colors_encoder, m_center_diamonds_count, m_center_colors_count);
+
+		return result;
+	}
+
+	protected long getAmountOfDirectColorVariables ()
+	{
+		return (long) m_border_diamonds_count * m_border_colors_count + (long) m_center_diamonds_count * m_center_colors_count;
+	}
+
+	/*
+	 * constraints "exactly one out of n" with encoder
+	 */
+	protected long getAmountOfAuxiliaryVariables (CardinalityEncoder encoder, int constraints, int n)
+	{
+		if (encoder == null) return 0;
+
+		return constraints * encoder.getAmountOfAuxiliaryVariables (n);
+	}
+
+	/*
+	 * true x_ij variables of a model, one per place
+	 * --> as in decodeSolution the last piece wins if a place has more than one
+	 *  (possible in the simple encoding)
+	 */
+	public int[] getPlacementVariables (Model solution)
+	{
+		int[] place_variables = new int [m_grid_width * m_grid_height];
+		int   places_count    = 0;
+
+		for (int i_variable = solution.nextTrueVariable (1); (i_variable > 0) && (i_variable < m_sat_start_colors); i_variable = solution.nextTrueVariable (i_variable + 1)) {
+			int place = convertSATVariableToPlace (i_variable);
+
+			if (place_variables[place] == 0) places_count ++;
+
+			place_variables[place] = i_variable;
+		}
+
+		int[] result = new int [places_count];
+		int   length = 0;
+
+		for (int i_variable : place_variables) {
+			if (i_variable != 0) result[length ++] = i_variable;
+		}
+
+		return result;
+	}
+
 	/*
 	 * ===============================================================================
 	 * helper functions ...
@@ -1116,19 +1297,56 @@ public class ProblemEncodingSimple extends Problem
 		return (place / m_grid_width);
 	}
 
+	/*
+	 * variable of piece on place, 0 if the piece cannot be on the place
+	 * (other kind or pruned) --> callers skip the clauses of such placements
+	 */
 	protected final int convertXijToSATVariable (int piece, int place)
 	{
-		return (m_grid_width * m_grid_height * place + piece) + 1;
+		int kind = m_piece_kinds[piece];
+
+		if (kind != m_place_kinds[place]) return 0;
+
+		int index = m_place_indices[place] * m_kind_piece_numbers[kind].length + m_piece_indices[piece];
+
+		if (m_placement_variables != null) return m_placement_variables[kind][index];
+
+		return m_placement_starts[kind] + index;
 	}
 
 	protected final int convertSATVariableToPiece (int variable)
 	{
-		return (variable - 1) % (m_grid_width * m_grid_height);
+		int kind = convertSATVariableToKind (variable);
+
+		return m_kind_piece_numbers[kind][convertSATVariableToPlacementIndex (kind, variable) % m_kind_piece_numbers[kind].length];
 	}
 
 	protected final int convertSATVariableToPlace (int variable)
 	{
-		return (variable - 1) / (m_grid_width * m_grid_height);
+		int kind = convertSATVariableToKind (variable);
+
+		return m_kind_place_numbers[kind][convertSATVariableToPlacementIndex (kind, variable) / m_kind_piece_numbers[kind].length];
+	}
+
+	/*
+	 * index of place * pieces of the kind + index of piece
+	 */
+	protected final int convertSATVariableToPlacementIndex (int kind, int variable)
+	{
+		if (m_placement_variables != null) return m_placement_indices[kind][variable - m_placement_starts[kind]];
+
+		return variable - m_placement_starts[kind];
+	}
+
+	/*
+	 * kind of a placement variable (the last range starting at or before it, empty ranges are skipped)
+	 */
+	protected final int convertSATVariableToKind (int variable)
+	{
+		if (variable >= m_placement_starts[m_kind_center]) return m_kind_center;
+		if (variable >= m_placement_starts[m_kind_border]) return m_kind_border;
+
+		return m_kind_corner;
 	}
 
 	protected final int getLeftDiamondOfPlace (int x, int y)
@@ -1220,6 +1438,8 @@ public class ProblemEncodingSimple extends Problem
 			current_position ++;
 		}
 
+		m_piece_set = new PieceSet (m_pieces);
+
 		if (m_bounded) {
 			m_corner_place_numbers.add (convertXYToPlaceNumber (0, 0));
 			m_corner_place_numbers.add (convertXYToPlaceNumber (0, m_grid_height - 1));
@@ -1253,6 +1473,91 @@ public class ProblemEncodingSimple extends Problem
 	/*
 	 * initialize colors and mapping
 	 */
+	/*
+	 * allocate the placement variables: corners, borders, center
+	 */
+	protected void initPlacementVariables ()
+	{
+		int places_count = m_grid_width * m_grid_height;
+
+		m_variable_allocator = new VariableAllocator ();
+
+		m_piece_kinds        = new int [m_pieces.size ()];
+		m_piece_indices      = new int [m_pieces.size ()];
+		m_place_kinds        = new int [places_count];
+		m_place_indices      = new int [places_count];
+		m_kind_piece_numbers = new int [3][];
+		m_kind_place_numbers = new int [3][];
+		m_placement_starts   = new int [3];
+
+		if (m_placement_domains != null) {
+			m_placement_variables = new int [3][];
+			m_placement_indices   = new int [3][];
+		}
+
+		// places without a kind (none in a valid problem) get no variables
+		Arrays.fill (m_place_kinds, -1);
+
+		initPlacementVariables (m_kind_corner, m_corner_piece_numbers, m_corner_place_numbers);
+		initPlacementVariables (m_kind_border, m_border_piece_numbers, m_border_place_numbers);
+		initPlacementVariables (m_kind_center, m_center_piece_numbers, m_center_place_numbers);
+	}
+
+	protected void initPlacementVariables (int kind, ArrayList<Integer> pieces, ArrayList<Integer> places)
+	{
+		m_kind_piece_numbers[kind] = new int [pieces.size ()];
+		m_kind_place_numbers[kind] = new int [places.size ()];
+
+		for (int i_index = 0; i_index < pieces.size (); i_index ++) {
+			int piece = pieces.get (i_index);
+
+			m_piece_kinds[piece]                = kind;
+			m_piece_indices[piece]              = i_index;
+			m_kind_piece_numbers[kind][i_index] = piece;
+		}
+
+		for (int i_index = 0; i_index < places.size (); i_index ++) {
+			int place = places.get (i_index);
+
+			m_place_kinds[place]                = kind;
+			m_place_indices[place]              = i_index;
+			m_kind_place_numbers[kind][i_index] = place;
+		}
+
+		long placements_count = (long) pieces.size () * places.size ();
+
+		// without pruning no table is needed (a range this large cannot be encoded anyway)
+		if ((m_placement_domains == null) || (placements_count > Integer.MAX_VALUE)) {
+			m_placement_starts[kind] = m_variable_allocator.allocate (placements_count);
+			return;
+		}
+
+		// number the possible placements relative to the start of the range
+		int[] variables      = new int [(int) placements_count];
+		int   possible_count = 0;
+
+		for (int i_place_index = 0; i_place_index < places.size (); i_place_index ++) {
+			for (int i_piece_index = 0; i_piece_index < pieces.size (); i_piece_index ++) {
+				if (m_placement_domains.isPossible (pieces.get (i_piece_index), places.get (i_place_index))) {
+					variables[i_place_index * pieces.size () + i_piece_index] = ++ possible_count;
+				}
+			}
+		}
+
+		int start = m_variable_allocator.allocate (possible_count);
+
+		m_placement_starts[kind]    = start;
+		m_placement_variables[kind] = variables;
+		m_placement_indices[kind]   = new int [possible_count];
+
+		for (int i_index = 0; i_index < variables.length; i_index ++) {
+			if (variables[i_index] == 0) continue;
+
+			m_placement_indices[kind][variables[i_index] - 1] = i_index;
+			variables[i_index] += start - 1;
+		}
+	}
+
 	protected void initColors ()
 	{
 		m_border_colors_count = m_border_colors.size ();
@@ -1330,8 +1635,39 @@ public class ProblemEncodingSimple extends Problem
 			m_center_diamonds_map_forward.put (m_center_diamonds.get (i_diamond), i_diamond);
 		}
 
-		m_sat_start_border_diamonds    = m_grid_width * m_grid_width * m_grid_height * m_grid_height + 1;
-		m_sat_start_center_diamonds    = m_sat_start_border_diamonds + m_border_diamonds_count * m_border_colors_count;
-		m_sat_start_next_free_variable = m_sat_start_center_diamonds + m_center_diamonds_count * m_center_colors_count;
+		initColorVariables ();
+	}
+
+	/*
+	 * allocate the color variables (y_kc or bits) after the placement variables
+	 */
+	protected void initColorVariables ()
+	{
+		if (m_color_encoding == ColorEncoding.log) {
+			m_border_color_bits = getAmountOfBits (m_border_colors_count);
+			m_center_color_bits = getAmountOfBits (m_center_colors_count);
+
+			m_sat_start_border_bits = m_variable_allocator.allocate ((long) m_border_diamonds_count * m_border_color_bits);
+			m_sat_start_center_bits = m_variable_allocator.allocate ((long) m_center_diamonds_count * m_center_color_bits);
+			m_sat_start_colors      = m_sat_start_border_bits;
+
+			// virtual, never written (see isEncodable)
+			m_sat_start_border_diamonds = (int) Math.max (VariableAllocator.m_max_variable - getAmountOfDirectColorVariables (), 1);
+			m_sat_start_center_diamonds = m_sat_start_border_diamonds + m_border_diamonds_count * m_border_colors_count;
+		} else {
+			m_sat_start_border_diamonds = m_variable_allocator.allocate ((long) m_border_diamonds_count * m_border_colors_count);
+			m_sat_start_center_diamonds = m_variable_allocator.allocate ((long) m_center_diamonds_count * m_center_colors_count);
+			m_sat_start_colors          = m_sat_start_border_diamonds;
+		}
+
+		m_sat_start_next_free_variable = m_variable_allocator.getAmountOfVariables () + 1;
+	}
+
+	/*
+	 * bits of the index of n colors: ceil (log2 (n)), 0 for a single color
+	 */
+	protected static int getAmountOfBits (int n)
+	{
+		return (n > 1 ? 32 - Integer.numberOfLeadingZeros (n - 1) : 0);
 	}
 }
@@ -27,34 +27,34 @@ public class ProblemEncodingSimpleRedundant extends ProblemEncodingSimple
 	 * function encoding our problem to sat
 	 */
 	@Override
-	public CNFFormula encodeToSAT ()
+	protected void encodeClauses (ClauseSink sink)
 	{
-		CNFFormula formula = super.encodeToSAT ();
+		super.encodeClauses (sink);
 
-		encodeForbiddenColorClauses (formula);
-		encodeExplicitOneOnOneMappingPieces (formula);
-		encodeExplicitOneOnOneMappingPlaces (formula);
-
-		return formula;
+		encodeForbiddenColorClauses (sink);
+		encodeExplicitOneOnOneMappingPieces (sink);
+		encodeExplicitOneOnOneMappingPlaces (sink);
 	}
 
-	protected void encodeForbiddenColorClauses (CNFFormula formula)
+	protected void encodeForbiddenColorClauses (ClauseSink sink)
 	{
 		// center colors
-		TreeMap<Integer,HashSet<Integer>> forbidden_color_sets_center = new TreeMap<Integer,HashSet<Integer>> ();
+		TreeMap<Integer,int[]> forbidden_color_sets_center = new TreeMap<Integer,int[]> ();
 
 		for (int i_piece : m_center_piece_numbers) {
 			Piece current_piece = m_pieces.get (i_piece);
 
 			HashSet<Integer> forbidden_colors        = new HashSet<Integer> ();
-			HashSet<Integer> forbidden_colors_mapped = new HashSet<Integer> ();
 
 			forbidden_colors.addAll (m_center_colors_map_forward.keySet ());
 
 			current_piece.removeAllColorsFrom (forbidden_colors);
 
+			int[] forbidden_colors_mapped = new int [forbidden_colors.size ()];
+			int   i_forbidden             = 0;
+
 			for (Integer i_color : forbidden_colors) {
-				forbidden_colors_mapped.add (m_center_colors_map_forward.get (i_color));
+				forbidden_colors_mapped[i_forbidden ++] = m_center_colors_map_forward.get (i_color);
 			}
 
 			forbidden_color_sets_center.put (i_piece, forbidden_colors_mapped);
@@ -74,24 +74,21 @@ public class ProblemEncodingSimpleRedundant extends ProblemEncodingSimple
 			for (int i_piece : m_center_piece_numbers) {
 				int xij = convertXijToSATVariable (i_piece, i_place);
 
-				HashSet<Integer> forbidden_colors = forbidden_color_sets_center.get (i_piece);
+				if (xij == 0) continue;
 
-				for (Integer i_forbidden_color : forbidden_colors) {
-					int[] tempArray1 = {-xij, -convertYkcCenterToSATVariable (diamond_left,   i_forbidden_color)};
-					int[] tempArray2 = {-xij, -convertYkcCenterToSATVariable (diamond_right,  i_forbidden_color)};
-					int[] tempArray3 = {-xij, -convertYkcCenterToSATVariable (diamond_top,    i_forbidden_color)};
-					int[] tempArray4 = {-xij, -convertYkcCenterToSATVariable (diamond_bottom, i_forbidden_color)};
+				int[] forbidden_colors = forbidden_color_sets_center.get (i_piece);
 
-					formula.addClause (tempArray1);
-					formula.addClause (tempArray2);
-					formula.addClause (tempArray3);
-					formula.addClause (tempArray4);
+				for (int i_forbidden_color : forbidden_colors) {
+					sink.addBinary (-xij, -convertYkcCenterToSATVariable (diamond_left, i_forbidden_color));
+					sink.addBinary (-xij, -convertYkcCenterToSATVariable (diamond_right, i_forbidden_color));
+					sink.addBinary (-xij, -convertYkcCenterToSATVariable (diamond_top, i_forbidden_color));
+					sink.addBinary (-xij, -convertYkcCenterToSATVariable (diamond_bottom, i_forbidden_color));
 				}
 			}
 		}
 	}
 
-	protected void encodeExplicitOneOnOneMappingPlaces (CNFFormula formula)
+	protected void encodeExplicitOneOnOneMappingPlaces (ClauseSink sink)
 	{
 		// corner places 
 		for (ListIterator<Integer> i_first_place = m_corner_place_numbers.listIterator (); i_first_place.hasNext (); ) {
@@ -101,9 +98,12 @@ public class ProblemEncodingSimpleRedundant extends ProblemEncodingSimple
 				int second_place = i_second_place.next ();
 
 				for (Integer piece: m_corner_piece_numbers) {
-					int[] tempArray = { - convertXijToSATVariable (piece, first_place), -convertXijToSATVariable (piece, second_place)};
+					int first_placement  = convertXijToSATVariable (piece, first_place);
+					int second_placement = convertXijToSATVariable (piece, second_place);
 
-					formula.addClause (tempArray);
+					if ((first_placement == 0) || (second_placement == 0)) continue;
+
+					sink.addBinary (- first_placement, - second_placement);
 				}
 			}
 		}
@@ -116,9 +116,12 @@ public class ProblemEncodingSimpleRedundant extends ProblemEncodingSimple
 				int second_place = i_second_place.next ();
 
 				for (Integer piece: m_border_piece_numbers) {
-					int[] tempArray = { - convertXijToSATVariable (piece, first_place), -convertXijToSATVariable (piece, second_place)};
+					int first_placement  = convertXijToSATVariable (piece, first_place);
+					int second_placement = convertXijToSATVariable (piece, second_place);
+
+					if ((first_placement == 0) || (second_placement == 0)) continue;
 
-					formula.addClause (tempArray);
+					sink.addBinary (- first_placement, - second_placement);
 				}
 			}
 		}
@@ -131,15 +134,18 @@ public class ProblemEncodingSimpleRedundant extends ProblemEncodingSimple
 				int second_place = i_second_place.next ();
 
 				for (Integer piece: m_center_piece_numbers) {
-					int[] tempArray = { - convertXijToSATVariable (piece, first_place), -convertXijToSATVariable (piece, second_place)};
+					int first_placement  = convertXijToSATVariable (piece, first_place);
+					int second_placement = convertXijToSATVariable (piece, second_place);
 
-					formula.addClause (tempArray);
+					if ((first_placement == 0) || (second_placement == 0)) continue;
+
+					sink.addBinary (- first_placement, - second_placement);
 				}
 			}
 		}
 	}
 
-	protected void encodeExplicitOneOnOneMappingPieces (CNFFormula formula)
+	protected void encodeExplicitOneOnOneMappingPieces (ClauseSink sink)
 	{
 		// corner pieces
 		for (ListIterator<Integer> i_first_piece = m_corner_piece_numbers.listIterator (); i_first_piece.hasNext (); ) {
@@ -149,9 +155,12 @@ public class ProblemEncodingSimpleRedundant extends ProblemEncodingSimple
 				int second_piece = i_second_piece.next ();
 
 				for (Integer place : m_corner_place_numbers) {
-					int[] tempArray = { - convertXijToSATVariable (first_piece, place), -convertXijToSATVariable (second_piece, place)};
+					int first_placement  = convertXijToSATVariable (first_piece, place);
+					int second_placement = convertXijToSATVariable (second_piece, place);
+
+					if ((first_placement == 0) || (second_placement == 0)) continue;
 
-					formula.addClause (tempArray);
+					sink.addBinary (- first_placement, - second_placement);
 				}
 			}
 		}
@@ -164,9 +173,12 @@ public class ProblemEncodingSimpleRedundant extends ProblemEncodingSimple
 				int second_piece = i_second_piece.next ();
 
 				for (Integer place : m_border_place_numbers) {
-					int[] tempArray = { - convertXijToSATVariable (first_piece, place), -convertXijToSATVariable (second_piece, place)};
+					int first_placement  = convertXijToSATVariable (first_piece, place);
+					int second_placement = convertXijToSATVariable (second_piece, place);
 
-					formula.addClause (tempArray);
+					if ((first_placement == 0) || (second_placement == 0)) continue;
+
+					sink.addBinary (- first_placement, - second_placement);
 				}
 			}
 		}
@@ -179,9 +191,12 @@ public class ProblemEncodingSimpleRedundant extends ProblemEncodingSimple
 				int second_piece = i_second_piece.next ();
 
 				for (Integer place : m_center_place_numbers) {
-					int[] tempArray = { - convertXijToSATVariable (first_piece, place), -convertXijToSATVariable (second_piece, place)};
+					int first_placement  = convertXijToSATVariable (first_piece, place);
+					int second_placement = convertXijToSATVariable (second_piece, place);
+
+					if ((first_placement == 0) || (second_placement == 0)) continue;
 
-					formula.addClause (tempArray);
+					sink.addBinary (- first_placement, - second_placement);
 				}
 			}
 		}
@@ -102,7 +102,12 @@ public class Reader
 		c3 = temp_scanner.nextInt();
 		if (! temp_scanner.hasNextInt ()) return false;
 		c4 = temp_scanner.nextInt();
-		
+
+		if (! (Piece.isValidColor (c1) && Piece.isValidColor (c2) && Piece.isValidColor (c3) && Piece.isValidColor (c4))) {
+			System.err.println ("Colors have to be in " + Short.MIN_VALUE + ", ..., " + Short.MAX_VALUE + ": " + line);
+			return false;
+		}
+
 		Piece temp_piece = new Piece (c1, c2, c3, c4);
 		return m_problem.addPiece (temp_piece);
 	}